@@ -0,0 +1,51 @@
+package by.babanin.todo.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import by.babanin.todo.controller.CheckUtils;
+
+/**
+ * {@link CheckUtils#assertNegativeIds(Set)} on the large ID sets {@code DELETE /todo?ids=} and {@code GET /todo/search} accept.
+ * The whole set is always scanned because it holds no negative ID.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckUtilsBenchmark {
+
+    @Param({ "1000", "100000" })
+    int size;
+
+    private Set<Long> ids;
+
+    @Setup
+    public void setUp() {
+        ids = LongStream.range(0, size)
+                .boxed()
+                .collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public Set<Long> assertNegativeIds() {
+        CheckUtils.assertNegativeIds(ids);
+        return ids;
+    }
+}
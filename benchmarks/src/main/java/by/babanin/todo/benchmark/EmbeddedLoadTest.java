@@ -0,0 +1,278 @@
+package by.babanin.todo.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import by.babanin.todo.Application;
+import by.babanin.todo.benchmark.LoadTest.Operation;
+import by.babanin.todo.benchmark.LoadTest.Stats;
+import by.babanin.todo.controller.ApiMediaTypes;
+import by.babanin.todo.controller.CursorUtils;
+
+/**
+ * Boots the whole application with the {@code load} profile (in-memory H2 seeded with {@code todos} and
+ * {@code priorities} rows), drives a mixed read/write workload against the {@code /todo} and {@code /priorities}
+ * endpoints and writes p50/p99 latency and throughput per endpoint to {@code reportDirectory/load-test.csv}.
+ * <p>
+ * The workload keeps every request valid for the whole run: swaps only exchange seeded rows, so their positions
+ * stay in place; moves and deletes only touch rows the workload created itself. {@code DELETE /all} and
+ * {@code PUT /order} are left out because they reset or rewrite the whole table.
+ * <p>
+ * Usage: {@code mvn -pl benchmarks -am verify -Pload-test}, or
+ * {@code java -cp benchmarks.jar by.babanin.todo.benchmark.EmbeddedLoadTest [concurrency] [seconds] [warmupSeconds]
+ * [todos] [priorities] [reportDirectory]}
+ */
+public class EmbeddedLoadTest {
+
+    private static final String JSON = "application/json";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final List<Long> todoIds = new ArrayList<>();
+    private final List<Long> todoPositions = new ArrayList<>();
+    private final List<Long> priorityIds = new ArrayList<>();
+    private final List<Long> priorityPositions = new ArrayList<>();
+    private final Queue<Long> createdTodoIds = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> movableTodoPositions = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> createdPriorityIds = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private String changesToken;
+
+    public EmbeddedLoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 60);
+        Duration warmup = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 15);
+        int todos = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+        int priorities = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        Path reportDirectory = Path.of(args.length > 5 ? args[5] : "target/load-test");
+
+        List<Stats> stats;
+        try(ConfigurableApplicationContext context = Application.run(
+                "--spring.profiles.active=load",
+                "--server.port=0",
+                "--api.load.seed.todos=" + todos,
+                "--api.load.seed.priorities=" + priorities)) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "");
+            EmbeddedLoadTest loadTest = new EmbeddedLoadTest(baseUrl);
+            loadTest.discover();
+            List<Operation> operations = loadTest.operations();
+            new LoadTest(baseUrl, concurrency, warmup).run(operations);
+            LoadTest measurement = new LoadTest(baseUrl, concurrency, duration);
+            stats = measurement.run(operations);
+            measurement.print(stats);
+        }
+        writeReport(reportDirectory.resolve("load-test.csv"), concurrency, todos, priorities, stats);
+        System.exit(0);
+    }
+
+    private static void writeReport(Path report, int concurrency, int todos, int priorities, List<Stats> stats) throws IOException {
+        Files.createDirectories(report.getParent());
+        try(PrintWriter writer = new PrintWriter(Files.newBufferedWriter(report))) {
+            writer.println("operation,concurrency,todos,priorities,requests,errors,throughput_rps,p50_ms,p99_ms,max_ms");
+            for(Stats row : stats) {
+                writer.println(String.format(Locale.ROOT, "\"%s\",%d,%d,%d,%d,%d,%.1f,%.2f,%.2f,%.2f",
+                        row.name(), concurrency, todos, priorities, row.requests(), row.errors(),
+                        row.throughput(), row.p50(), row.p99(), row.max()));
+            }
+        }
+    }
+
+    /**
+     * Collects IDs and positions of the seeded rows, and creates rows that only moves will touch.
+     */
+    private void discover() throws Exception {
+        for(JsonNode todo : fetch("/todo/all")) {
+            todoIds.add(todo.get("id").asLong());
+            todoPositions.add(todo.get("position").asLong());
+        }
+        for(JsonNode priority : fetch("/priorities/all")) {
+            priorityIds.add(priority.get("id").asLong());
+            priorityPositions.add(priority.get("position").asLong());
+        }
+        if(todoIds.isEmpty() || priorityIds.isEmpty()) {
+            throw new IllegalStateException("The load profile must seed at least one todo and one priority.");
+        }
+        for(int i = 0; i < 100; i++) {
+            JsonNode todo = send(post("/todo", todo()));
+            movableTodoPositions.add(todo.get("position").asLong());
+        }
+        changesToken = fetch("/todo/changes").get("token").asText();
+    }
+
+    private List<Operation> operations() {
+        return List.of(
+                new Operation("GET /todo", 10, () -> get("/todo?page=" + random(todoIds.size() / 20) + "&size=20")),
+                new Operation("GET /todo?limit", 10, () -> get("/todo?limit=50&after=" + CursorUtils.encode(randomOf(todoPositions)))),
+                new Operation("GET /todo/{id}", 20, () -> get("/todo/" + randomOf(todoIds))),
+                new Operation("GET /todo/search", 5, () -> get("/todo/search?ids=" + randomIds(todoIds, 10))),
+                new Operation("GET /todo/all", 2, () -> get("/todo/all")),
+                new Operation("GET /todo/all (ndjson)", 1, () -> request("/todo/all")
+                        .header("Accept", "application/x-ndjson")
+                        .GET()
+                        .build()),
+                new Operation("GET /todo/changes", 2, () -> get("/todo/changes?since=" + changesToken)),
+                new Operation("POST /todo", 5, () -> post("/todo", todo()), body -> createdTodoIds.add(read(body).get("id").asLong())),
+                new Operation("POST /todo/batch", 1, () -> post("/todo/batch", "[" + todo() + "," + todo() + "," + todo() + "]"),
+                        body -> read(body).forEach(todo -> createdTodoIds.add(todo.get("id").asLong()))),
+                new Operation("PUT /todo/{id}", 3, () -> put("/todo/" + randomOf(todoIds), todoToUpdate())),
+                new Operation("PUT /todo/batch", 1, () -> put("/todo/batch",
+                        "{\"" + randomOf(todoIds) + "\":" + todoToUpdate() + ",\"" + randomOf(todoIds) + "\":" + todoToUpdate() + "}")),
+                new Operation("PATCH /todo/{id}", 3, () -> patch("/todo/" + randomOf(todoIds), "{\"title\":\"patched" + sequence.incrementAndGet() % 1000 + "\"}")),
+                new Operation("PUT /todo/swap", 1, () -> put("/todo/swap", swap(todoPositions))),
+                new Operation("PUT /todo/move", 1, this::moveTodo, body -> movableTodoPositions.add(read(body).get("position").asLong())),
+                new Operation("DELETE /todo/{id}", 3, () -> {
+                    Long id = createdTodoIds.poll();
+                    return id != null ? request("/todo/" + id).DELETE().build() : null;
+                }),
+                new Operation("DELETE /todo?ids", 1, this::deleteTodos),
+                new Operation("GET /priorities", 5, () -> get("/priorities?page=0&size=20")),
+                new Operation("GET /priorities?limit", 2, () -> get("/priorities?limit=50")),
+                new Operation("GET /priorities/all", 5, () -> get("/priorities/all")),
+                new Operation("GET /priorities/{id}", 5, () -> get("/priorities/" + randomOf(priorityIds))),
+                new Operation("GET /priorities/search", 2, () -> get("/priorities/search?ids=" + randomIds(priorityIds, 3))),
+                new Operation("POST /priorities", 1, () -> post("/priorities", "{\"name\":\"" + priorityName() + "\"}"),
+                        body -> createdPriorityIds.add(read(body).get("id").asLong())),
+                new Operation("PUT /priorities/{id}", 1, () -> put("/priorities/" + randomOf(priorityIds), "{\"name\":\"" + priorityName() + "\"}")),
+                new Operation("PATCH /priorities/{id}", 1, () -> patch("/priorities/" + randomOf(priorityIds), "{\"name\":\"" + priorityName() + "\"}")),
+                new Operation("PUT /priorities/swap", 1, () -> put("/priorities/swap", swap(priorityPositions))),
+                new Operation("DELETE /priorities/{id}", 1, () -> {
+                    Long id = createdPriorityIds.poll();
+                    return id != null ? request("/priorities/" + id).DELETE().build() : null;
+                }));
+    }
+
+    private HttpRequest moveTodo() {
+        Long from = movableTodoPositions.poll();
+        if(from == null) {
+            return null;
+        }
+        return put("/todo/move", "{\"from\":" + from + ",\"to\":" + randomOf(todoPositions) + "}");
+    }
+
+    private HttpRequest deleteTodos() {
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while(ids.size() < 3 && (id = createdTodoIds.poll()) != null) {
+            ids.add(id);
+        }
+        return ids.isEmpty() ? null : request("/todo?ids=" + join(ids)).DELETE().build();
+    }
+
+    private String todo() {
+        return "{\"title\":\"load" + sequence.incrementAndGet() % 1000 + "\",\"priorityId\":" + randomOf(priorityIds)
+                + ",\"plannedDate\":\"" + LocalDate.now().plusDays(1) + "\"}";
+    }
+
+    private String todoToUpdate() {
+        return "{\"title\":\"updated" + sequence.incrementAndGet() % 1000 + "\",\"priorityId\":" + randomOf(priorityIds)
+                + ",\"status\":\"OPEN\"}";
+    }
+
+    /**
+     * Unique within the 16 characters a priority name may have.
+     */
+    private String priorityName() {
+        return "load" + sequence.incrementAndGet();
+    }
+
+    private static String swap(List<Long> positions) {
+        int from = random(positions.size());
+        int to = (from + 1 + random(positions.size() - 1)) % positions.size();
+        return "{\"from\":" + positions.get(from) + ",\"to\":" + positions.get(to) + "}";
+    }
+
+    private static String randomIds(List<Long> ids, int count) {
+        List<Long> randomIds = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            randomIds.add(randomOf(ids));
+        }
+        return join(randomIds);
+    }
+
+    private static String join(List<Long> ids) {
+        return ids.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    private static long randomOf(List<Long> values) {
+        return values.get(random(values.size()));
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(Math.max(bound, 1));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path));
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return request(path).header("Content-Type", JSON).POST(BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest put(String path, String body) {
+        return request(path).header("Content-Type", JSON).PUT(BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest patch(String path, String body) {
+        return request(path)
+                .header("Content-Type", ApiMediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                .method("PATCH", BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private JsonNode fetch(String path) throws Exception {
+        return send(get(path));
+    }
+
+    private JsonNode send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
+        if(response.statusCode() != 200) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + ": " + response.statusCode() + " " + response.body());
+        }
+        return read(response.body());
+    }
+
+    private JsonNode read(String body) {
+        try {
+            return objectMapper.readTree(body);
+        }
+        catch(IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package by.babanin.todo.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load generator for comparing request execution modes of a running API, e.g. platform threads
+ * against {@code --api.threads.virtual.enabled=true}. Every worker sends the next request as soon as the previous
+ * one is answered, so throughput and latency show how the server copes with {@code concurrency} in-flight requests.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar by.babanin.todo.benchmark.LoadTest [baseUrl] [concurrency] [seconds]}
+ */
+public class LoadTest {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int concurrency;
+    private final Duration duration;
+
+    public LoadTest(String baseUrl, int concurrency, Duration duration) {
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+        this.duration = duration;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(Math.min(concurrency, 64)))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8081/api";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+        LoadTest loadTest = new LoadTest(baseUrl, concurrency, duration);
+
+        String todo = "{\"title\":\"load\",\"plannedDate\":\"" + LocalDate.now().plusDays(1) + "\"}";
+        long id = loadTest.createTodo(todo);
+        loadTest.print(loadTest.run(List.of(new Operation("GET /todo/{id}", 1, () -> HttpRequest.newBuilder(URI.create(baseUrl + "/todo/" + id))
+                .GET()
+                .build()))));
+        loadTest.print(loadTest.run(List.of(new Operation("POST /todo", 1, () -> HttpRequest.newBuilder(URI.create(baseUrl + "/todo"))
+                .header("Content-Type", "application/json")
+                .POST(BodyPublishers.ofString(todo))
+                .build()))));
+        System.exit(0);
+    }
+
+    private long createTodo(String todo) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/todo"))
+                .header("Content-Type", "application/json")
+                .POST(BodyPublishers.ofString(todo))
+                .build(), BodyHandlers.ofString());
+        Matcher matcher = ID_PATTERN.matcher(response.body());
+        if(response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Can't create a todo: " + response.statusCode() + " " + response.body());
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    /**
+     * Every worker repeatedly picks one of the {@code operations} at random, proportionally to its weight,
+     * until the duration is over. An operation whose request supplier returns {@code null} has nothing to do
+     * at the moment, e.g. no row left to delete, and is picked again.
+     *
+     * @return statistics per operation in the given order, followed by the total over all of them
+     */
+    public List<Stats> run(List<Operation> operations) throws Exception {
+        int[] cumulativeWeights = new int[operations.size()];
+        int totalWeight = 0;
+        for(int i = 0; i < operations.size(); i++) {
+            totalWeight += operations.get(i).weight();
+            cumulativeWeights[i] = totalWeight;
+        }
+        int weight = totalWeight;
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Result[]>> futures = new ArrayList<>(concurrency);
+        for(int i = 0; i < concurrency; i++) {
+            futures.add(workers.submit(() -> {
+                Result[] results = new Result[operations.size()];
+                Arrays.setAll(results, index -> new Result());
+                start.await();
+                while(System.nanoTime() < deadline) {
+                    int index = Arrays.binarySearch(cumulativeWeights, ThreadLocalRandom.current().nextInt(weight) + 1);
+                    index = index < 0 ? -index - 1 : index;
+                    Operation operation = operations.get(index);
+                    HttpRequest request = operation.request().get();
+                    if(request == null) {
+                        continue;
+                    }
+                    Result result = results[index];
+                    long begin = System.nanoTime();
+                    try {
+                        if(operation.response() == null) {
+                            HttpResponse<Void> response = client.send(request, BodyHandlers.discarding());
+                            result.add(System.nanoTime() - begin, response.statusCode() >= 400);
+                        }
+                        else {
+                            HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
+                            result.add(System.nanoTime() - begin, response.statusCode() >= 400);
+                            if(response.statusCode() < 400) {
+                                operation.response().accept(response.body());
+                            }
+                        }
+                    }
+                    catch(Exception e) {
+                        result.add(System.nanoTime() - begin, true);
+                    }
+                }
+                return results;
+            }));
+        }
+        start.countDown();
+        Result[] totals = new Result[operations.size()];
+        Arrays.setAll(totals, index -> new Result());
+        for(Future<Result[]> future : futures) {
+            Result[] results = future.get();
+            for(int i = 0; i < results.length; i++) {
+                totals[i].merge(results[i]);
+            }
+        }
+        workers.shutdown();
+
+        List<Stats> stats = new ArrayList<>(operations.size() + 1);
+        Result total = new Result();
+        for(int i = 0; i < operations.size(); i++) {
+            stats.add(totals[i].toStats(operations.get(i).name(), duration));
+            total.merge(totals[i]);
+        }
+        if(operations.size() > 1) {
+            stats.add(total.toStats("TOTAL", duration));
+        }
+        return stats;
+    }
+
+    public void print(List<Stats> stats) {
+        for(Stats row : stats) {
+            System.out.printf("%-28s concurrency=%d requests=%d errors=%d throughput=%.0f req/s p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                    row.name(), concurrency, row.requests(), row.errors(), row.throughput(), row.p50(), row.p99(), row.max());
+        }
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        if(sortedLatencies.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    /**
+     * One kind of request in a workload.
+     *
+     * @param weight relative frequency among the other operations
+     * @param request creates the next request, or returns {@code null} if there is nothing to send right now
+     * @param response receives the body of successful responses, {@code null} if the body isn't needed
+     */
+    public record Operation(String name, int weight, Supplier<HttpRequest> request, Consumer<String> response) {
+
+        public Operation(String name, int weight, Supplier<HttpRequest> request) {
+            this(name, weight, request, null);
+        }
+    }
+
+    /**
+     * Latencies are in milliseconds. Responses with a 4xx or 5xx status count as errors.
+     */
+    public record Stats(String name, int requests, int errors, double throughput, double p50, double p99, double max) {
+
+    }
+
+    private static class Result {
+
+        long[] latencies = new long[1024];
+        int count;
+        int errors;
+
+        void add(long latency, boolean error) {
+            if(count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+            if(error) {
+                errors++;
+            }
+        }
+
+        void merge(Result other) {
+            for(int i = 0; i < other.count; i++) {
+                add(other.latencies[i], false);
+            }
+            errors += other.errors;
+        }
+
+        Stats toStats(String name, Duration duration) {
+            long[] sortedLatencies = Arrays.copyOf(latencies, count);
+            Arrays.sort(sortedLatencies);
+            return new Stats(name, count, errors, count / (double) duration.toSeconds(),
+                    percentile(sortedLatencies, 0.50), percentile(sortedLatencies, 0.99), percentile(sortedLatencies, 1.0));
+        }
+    }
+}
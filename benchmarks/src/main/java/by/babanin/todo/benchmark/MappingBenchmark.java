@@ -0,0 +1,64 @@
+package by.babanin.todo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import by.babanin.todo.controller.dto.TodoInfo;
+import by.babanin.todo.controller.mapper.PriorityMapper;
+import by.babanin.todo.controller.mapper.TodoMapper;
+import by.babanin.todo.model.Todo;
+
+/**
+ * Compares the reflective {@link ModelMapper} configuration the API used to have
+ * with the hand-written {@link TodoMapper} on the shapes returned by {@code GET /todo/all}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({ "1000", "10000" })
+    int size;
+
+    private List<Todo> todos;
+    private ModelMapper modelMapper;
+    private TodoMapper todoMapper;
+
+    @Setup
+    public void setUp() {
+        todos = Todos.create(size);
+        modelMapper = new ModelMapper();
+        todoMapper = new TodoMapper(new PriorityMapper());
+    }
+
+    @Benchmark
+    public List<TodoInfo> todoInfoListWithModelMapper() {
+        return todos.stream()
+                .map(todo -> modelMapper.map(todo, TodoInfo.class))
+                .toList();
+    }
+
+    @Benchmark
+    public List<TodoInfo> todoInfoListWithTodoMapper() {
+        return todos.stream()
+                .map(todoMapper::toTodoInfo)
+                .toList();
+    }
+
+}
@@ -0,0 +1,87 @@
+package by.babanin.todo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import by.babanin.todo.Application;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.controller.service.TodoWriteService;
+import by.babanin.todo.model.Todo;
+
+/**
+ * Compares {@code PUT /todo/move} with the chain of {@code PUT /todo/swap} calls a client needed before.
+ * Boots the application with the {@code load} profile (in-memory H2) and calls {@link TodoWriteService} directly,
+ * so both arms run the real statements and transactions of the services, but no HTTP or JSON.
+ * Every swap is its own transaction as it was its own request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoveBenchmark {
+
+    private static final int SIZE = 2000;
+    private static final long FROM = 2;
+
+    @Param({ "10", "100", "900" })
+    int distance;
+
+    private ConfigurableApplicationContext context;
+    private TodoWriteService todoWriteService;
+    private List<Long> seededOrder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = Application.run(
+                "--spring.profiles.active=load",
+                "--spring.main.web-application-type=none",
+                "--api.load.seed.todos=" + SIZE,
+                "--api.load.seed.priorities=1");
+        todoWriteService = context.getBean(TodoWriteService.class);
+        seededOrder = context.getBean(TodoApiRepository.class).findAllWithPriorityByOrderByPosition().stream()
+                .map(Todo::getId)
+                .toList();
+    }
+
+    /**
+     * Restores the seeded order with gapped ranks, so every invocation moves the same row over the same rows.
+     */
+    @Setup(Level.Invocation)
+    public void resetPositions() {
+        todoWriteService.reorder(seededOrder);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void swaps() {
+        for(long position = FROM; position < FROM + distance; position++) {
+            todoWriteService.swap(position, position + 1);
+        }
+    }
+
+    @Benchmark
+    public Object move() {
+        return todoWriteService.move(FROM, FROM + distance);
+    }
+}
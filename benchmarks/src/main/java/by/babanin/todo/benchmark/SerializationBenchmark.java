@@ -0,0 +1,94 @@
+package by.babanin.todo.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import by.babanin.todo.controller.dto.TodoInfo;
+import by.babanin.todo.controller.json.ApiJsonModule;
+import by.babanin.todo.controller.mapper.PriorityMapper;
+import by.babanin.todo.controller.mapper.TodoMapper;
+
+/**
+ * JSON serialization of the bodies returned by {@code GET /todo} ({@link Page}) and {@code GET /todo/all} ({@link List}),
+ * with an {@link ObjectMapper} configured the way Spring Boot configures the one MVC uses.
+ * {@code mapper=tuned} adds the modules of {@code JsonConfiguration}. The {@code Gzip} variants add the CPU cost
+ * of response compression, and the body sizes with and without it are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({ "20", "1000", "10000" })
+    int size;
+
+    @Param({ "default", "tuned" })
+    String mapper;
+
+    private ObjectMapper objectMapper;
+    private List<TodoInfo> todoInfos;
+    private Page<TodoInfo> todoInfoPage;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if("tuned".equals(mapper)) {
+            builder.modulesToInstall(new BlackbirdModule(), new ApiJsonModule());
+        }
+        objectMapper = builder.build();
+        TodoMapper todoMapper = new TodoMapper(new PriorityMapper());
+        todoInfos = Todos.create(size).stream()
+                .map(todoMapper::toTodoInfo)
+                .toList();
+        todoInfoPage = new PageImpl<>(todoInfos, PageRequest.of(0, size), size * 10L);
+        System.out.printf("%nGET /todo/all body for %d todos: %d bytes, %d bytes gzip-compressed%n",
+                size, list().length, listGzip().length);
+    }
+
+    @Benchmark
+    public byte[] list() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(todoInfos);
+    }
+
+    @Benchmark
+    public byte[] page() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(todoInfoPage);
+    }
+
+    @Benchmark
+    public byte[] listGzip() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try(GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            objectMapper.writeValue(gzipOutputStream, todoInfos);
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,113 @@
+package by.babanin.todo.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import by.babanin.todo.Application;
+import by.babanin.todo.benchmark.LoadTest.Operation;
+import by.babanin.todo.benchmark.LoadTest.Stats;
+
+/**
+ * Compares platform and virtual request threads. Boots the application with the {@code load} profile once per mode,
+ * drives {@code GET /todo/{id}} and then {@code POST /todo} at the same {@code concurrency} against each
+ * and writes p50/p99 latency and throughput per mode and endpoint to {@code reportDirectory/thread-modes.csv}.
+ * <p>
+ * The platform mode runs with the default JDBC pool and the virtual one with the pool sized by
+ * {@code api.threads.virtual.jdbc.*}. Set e.g. {@code -Dspring.datasource.hikari.maximum-pool-size=50} to compare
+ * both at the same pool size.
+ * The virtual mode needs a Java 21 runtime and is skipped with a message on older ones.
+ * <p>
+ * Usage: {@code mvn -pl benchmarks -am verify -Pthread-mode-test}, or
+ * {@code java -cp benchmarks.jar by.babanin.todo.benchmark.ThreadModeLoadTest [concurrency] [seconds] [warmupSeconds]
+ * [todos] [reportDirectory]}
+ */
+public class ThreadModeLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 30);
+        Duration warmup = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 10);
+        int todos = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+        Path reportDirectory = Path.of(args.length > 4 ? args[4] : "target/load-test");
+
+        List<String> rows = new ArrayList<>();
+        for(String mode : List.of("platform", "virtual")) {
+            boolean virtual = mode.equals("virtual");
+            if(virtual && Runtime.version().feature() < 21) {
+                System.out.println("Skipping virtual threads, they need Java 21 but this is " + Runtime.version());
+                continue;
+            }
+            try(ConfigurableApplicationContext context = Application.run(
+                    "--spring.profiles.active=load",
+                    "--server.port=0",
+                    "--api.load.seed.todos=" + todos,
+                    "--api.threads.virtual.enabled=" + virtual)) {
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                        + context.getEnvironment().getProperty("server.servlet.context-path", "");
+                for(Operation operation : operations(baseUrl)) {
+                    new LoadTest(baseUrl, concurrency, warmup).run(List.of(operation));
+                    LoadTest measurement = new LoadTest(baseUrl, concurrency, duration);
+                    List<Stats> stats = measurement.run(List.of(operation));
+                    System.out.print(mode + ": ");
+                    measurement.print(stats);
+                    for(Stats row : stats) {
+                        rows.add(String.format(Locale.ROOT, "%s,\"%s\",%d,%d,%d,%d,%.1f,%.2f,%.2f,%.2f",
+                                mode, row.name(), concurrency, todos, row.requests(), row.errors(),
+                                row.throughput(), row.p50(), row.p99(), row.max()));
+                    }
+                }
+            }
+        }
+        writeReport(reportDirectory.resolve("thread-modes.csv"), rows);
+        System.exit(0);
+    }
+
+    private static List<Operation> operations(String baseUrl) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        HttpClient client = HttpClient.newHttpClient();
+        String body = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/todo/all")).GET().build(), BodyHandlers.ofString())
+                .body();
+        for(JsonNode todo : new ObjectMapper().readTree(body)) {
+            ids.add(todo.get("id").asLong());
+        }
+        if(ids.isEmpty()) {
+            throw new IllegalStateException("The load profile must seed at least one todo.");
+        }
+        String todo = "{\"title\":\"load\",\"plannedDate\":\"" + LocalDate.now().plusDays(1) + "\"}";
+        return List.of(
+                new Operation("GET /todo/{id}", 1, () -> HttpRequest.newBuilder(URI.create(baseUrl + "/todo/"
+                                + ids.get(ThreadLocalRandom.current().nextInt(ids.size()))))
+                        .GET()
+                        .build()),
+                new Operation("POST /todo", 1, () -> HttpRequest.newBuilder(URI.create(baseUrl + "/todo"))
+                        .header("Content-Type", "application/json")
+                        .POST(BodyPublishers.ofString(todo))
+                        .build()));
+    }
+
+    private static void writeReport(Path report, List<String> rows) throws IOException {
+        Files.createDirectories(report.getParent());
+        try(PrintWriter writer = new PrintWriter(Files.newBufferedWriter(report))) {
+            writer.println("mode,operation,concurrency,todos,requests,errors,throughput_rps,p50_ms,p99_ms,max_ms");
+            rows.forEach(writer::println);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package by.babanin.todo.benchmark;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import by.babanin.todo.model.Priority;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+
+/**
+ * Entities shaped like the ones {@code GET /todo/all} returns, shared by the benchmarks.
+ */
+final class Todos {
+
+    static final Priority PRIORITY = Priority.builder()
+            .id(1L)
+            .name("priority")
+            .position(0)
+            .build();
+
+    private Todos() {
+    }
+
+    static List<Todo> create(int size) {
+        return LongStream.range(0, size)
+                .mapToObj(id -> Todo.builder()
+                        .id(id)
+                        .title("title" + id)
+                        .description("description" + id)
+                        .status(Status.OPEN)
+                        .priority(PRIORITY)
+                        .creationDate(LocalDate.now())
+                        .plannedDate(LocalDate.now().plusDays(1))
+                        .position(id)
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,97 @@
+package by.babanin.todo.benchmark;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import by.babanin.todo.controller.dto.TodoToCreate;
+import by.babanin.todo.controller.dto.TodoToUpdate;
+import by.babanin.todo.model.Status;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+/**
+ * Bean validation of request bodies as {@code @Valid} runs it for {@code POST /todo} and {@code PUT /todo/{id}},
+ * for a valid body and for one that violates every constraint, which also pays for message interpolation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private TodoToCreate validTodoToCreate;
+    private TodoToCreate invalidTodoToCreate;
+    private TodoToUpdate validTodoToUpdate;
+    private TodoToUpdate invalidTodoToUpdate;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+
+        validTodoToCreate = new TodoToCreate();
+        validTodoToCreate.setTitle("title");
+        validTodoToCreate.setDescription("description");
+        validTodoToCreate.setPriorityId(1L);
+        validTodoToCreate.setPlannedDate(LocalDate.now().plusDays(1));
+        invalidTodoToCreate = new TodoToCreate();
+        invalidTodoToCreate.setTitle("");
+        invalidTodoToCreate.setDescription("d".repeat(1025));
+        invalidTodoToCreate.setPriorityId(-1L);
+        invalidTodoToCreate.setPosition(-1L);
+
+        validTodoToUpdate = new TodoToUpdate();
+        validTodoToUpdate.setTitle("title");
+        validTodoToUpdate.setDescription("description");
+        validTodoToUpdate.setPriorityId(1L);
+        validTodoToUpdate.setStatus(Status.OPEN);
+        invalidTodoToUpdate = new TodoToUpdate();
+        invalidTodoToUpdate.setTitle("");
+        invalidTodoToUpdate.setDescription("d".repeat(1025));
+        invalidTodoToUpdate.setPriorityId(-1L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TodoToCreate>> validTodoToCreate() {
+        return validator.validate(validTodoToCreate);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TodoToCreate>> invalidTodoToCreate() {
+        return validator.validate(invalidTodoToCreate);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TodoToUpdate>> validTodoToUpdate() {
+        return validator.validate(validTodoToUpdate);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TodoToUpdate>> invalidTodoToUpdate() {
+        return validator.validate(invalidTodoToUpdate);
+    }
+}
@@ -2,12 +2,17 @@ package by.babanin.todo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class Application {
 
     public static void main(String[] args) {
+        run(args);
+    }
+
+    public static ConfigurableApplicationContext run(String... args) {
         System.setProperty("spring.config.additional-location", "classpath:api.properties, classpath:api-${spring.profiles.active}.properties");
-        SpringApplication.run(Application.class, args);
+        return SpringApplication.run(Application.class, args);
     }
 }
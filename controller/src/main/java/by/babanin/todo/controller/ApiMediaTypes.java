@@ -0,0 +1,12 @@
+package by.babanin.todo.controller;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class ApiMediaTypes {
+
+    /**
+     * JSON Merge Patch, RFC 7396.
+     */
+    public static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+}
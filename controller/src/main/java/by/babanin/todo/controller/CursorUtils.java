@@ -0,0 +1,95 @@
+package by.babanin.todo.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import by.babanin.todo.controller.dto.CursorPage;
+import jakarta.validation.ValidationException;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Cursors carry the position (rank) of the last row of a slice, and its index where the two differ, so the next slice
+ * is numbered without counting rows. Indexes are then counted from the cursor, rows inserted or deleted before it
+ * in the meantime aren't accounted for.
+ */
+@UtilityClass
+public class CursorUtils {
+
+    private static final String PREFIX = "p:";
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Position to start after when no cursor is given, so the first slice starts at position 0.
+     */
+    public static final long NO_POSITION = -1;
+
+    /**
+     * For dense tables, where the position is the index.
+     */
+    public static String encode(long position) {
+        return encode(position, position);
+    }
+
+    public static String encode(long position, long index) {
+        String value = PREFIX + position + (index == position ? "" : SEPARATOR + index);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decode(String cursor) {
+        return decodeCursor(cursor).position();
+    }
+
+    public static Cursor decodeCursor(String cursor) {
+        if(cursor == null || cursor.isEmpty()) {
+            return new Cursor(NO_POSITION, NO_POSITION);
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if(value.startsWith(PREFIX)) {
+                String[] parts = value.substring(PREFIX.length()).split(SEPARATOR, -1);
+                long position = Long.parseLong(parts[0]);
+                long index = parts.length > 1 ? Long.parseLong(parts[1]) : position;
+                if(parts.length <= 2 && position >= 0 && index >= 0) {
+                    return new Cursor(position, index);
+                }
+            }
+        }
+        catch(IllegalArgumentException e) {
+            // falls through to the validation error below
+        }
+        throw new ValidationException("Cursor is not valid.");
+    }
+
+    /**
+     * Builds a slice from {@code rows} fetched with {@code limit + 1} so that the extra row tells whether a next slice exists.
+     */
+    public static <E, T> CursorPage<T> toCursorPage(List<E> rows, int limit, ToLongFunction<E> position, Function<E, T> mapper) {
+        return buildPage(rows, limit, last -> encode(position.applyAsLong(last)), mapper);
+    }
+
+    /**
+     * Same as {@link #toCursorPage(List, int, ToLongFunction, Function)} for a slice that follows the row at index
+     * {@code previousIndex}, so that the next cursor carries the index of its last row.
+     */
+    public static <E, T> CursorPage<T> toCursorPage(List<E> rows, int limit, ToLongFunction<E> position, long previousIndex, Function<E, T> mapper) {
+        return buildPage(rows, limit, last -> encode(position.applyAsLong(last), previousIndex + limit), mapper);
+    }
+
+    private static <E, T> CursorPage<T> buildPage(List<E> rows, int limit, Function<E, String> cursor, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > limit;
+        List<E> content = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? cursor.apply(content.get(limit - 1)) : null;
+        return new CursorPage<>(content.stream().map(mapper).toList(), nextCursor);
+    }
+
+    /**
+     * @param position position of the last row of the previous slice
+     * @param index index of that row
+     */
+    public record Cursor(long position, long index) {
+
+    }
+}
@@ -3,13 +3,18 @@ package by.babanin.todo.controller;
 import java.util.List;
 import java.util.Set;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -17,15 +22,41 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import by.babanin.todo.application.repository.PriorityRepository;
 import by.babanin.todo.application.service.PriorityService;
+import by.babanin.todo.controller.batch.BatchLoader;
+import by.babanin.todo.controller.cache.PriorityCache;
+import by.babanin.todo.controller.cache.PriorityJsonCache;
+import by.babanin.todo.controller.cache.TableVersions;
+import by.babanin.todo.controller.datasource.ReplicaRoutingJpaTransactionManager;
+import by.babanin.todo.controller.dto.CursorPage;
+import by.babanin.todo.controller.dto.MoveParameter;
 import by.babanin.todo.controller.dto.PriorityInfo;
+import by.babanin.todo.controller.dto.PriorityPatch;
 import by.babanin.todo.controller.dto.SwapParameter;
+import by.babanin.todo.controller.mapper.PriorityMapper;
+import by.babanin.todo.controller.metrics.MappingTimer;
+import by.babanin.todo.controller.repository.PriorityApiRepository;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.controller.service.PriorityWriteService;
+import by.babanin.todo.controller.stream.NdjsonWriter;
+import by.babanin.todo.controller.sync.TodoChangeLog;
 import by.babanin.todo.model.Priority;
 import by.babanin.todo.model.Priority.Fields;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.ValidationException;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 
 @RestController
@@ -35,12 +66,45 @@ public class PriorityController {
 
     private final PriorityService priorityService;
     private final PriorityRepository priorityRepository;
-    private final ModelMapper modelMapper;
+    private final PriorityApiRepository priorityApiRepository;
+    private final PriorityMapper priorityMapper;
+    private final PriorityCache priorityCache;
+    private final NdjsonWriter ndjsonWriter;
+    private final PriorityWriteService priorityWriteService;
+    private final TableVersions tableVersions;
+    private final PriorityJsonCache priorityJsonCache;
+    private final BatchLoader<Long, PriorityInfo> priorityLoader;
+    private final TodoApiRepository todoApiRepository;
+    private final TodoChangeLog todoChangeLog;
+    private final MappingTimer mappingTimer;
 
-    public PriorityController(PriorityService priorityService, PriorityRepository priorityRepository, ModelMapper modelMapper) {
+    public PriorityController(
+            PriorityService priorityService,
+            PriorityRepository priorityRepository,
+            PriorityApiRepository priorityApiRepository,
+            PriorityMapper priorityMapper,
+            PriorityCache priorityCache,
+            NdjsonWriter ndjsonWriter,
+            PriorityWriteService priorityWriteService,
+            TableVersions tableVersions,
+            PriorityJsonCache priorityJsonCache,
+            BatchLoader<Long, PriorityInfo> priorityLoader,
+            TodoApiRepository todoApiRepository,
+            TodoChangeLog todoChangeLog,
+            MappingTimer mappingTimer) {
         this.priorityService = priorityService;
         this.priorityRepository = priorityRepository;
-        this.modelMapper = modelMapper;
+        this.priorityApiRepository = priorityApiRepository;
+        this.priorityMapper = priorityMapper;
+        this.priorityCache = priorityCache;
+        this.ndjsonWriter = ndjsonWriter;
+        this.priorityWriteService = priorityWriteService;
+        this.tableVersions = tableVersions;
+        this.priorityJsonCache = priorityJsonCache;
+        this.priorityLoader = priorityLoader;
+        this.todoApiRepository = todoApiRepository;
+        this.todoChangeLog = todoChangeLog;
+        this.mappingTimer = mappingTimer;
     }
 
     @PostMapping
@@ -49,11 +113,13 @@ public class PriorityController {
         Long position = priorityInfo.getPosition();
         if(position == null) {
             priority = priorityService.create(priorityInfo.getName());
+            priorityChanged();
         }
         else {
             priority = priorityService.create(position, priorityInfo.getName());
+            prioritiesChanged();
         }
-        return modelMapper.map(priority, PriorityInfo.class);
+        return priorityMapper.toPriorityInfo(priority);
     }
 
     @PutMapping("{id}")
@@ -61,54 +127,153 @@ public class PriorityController {
             @PathVariable("id") @PositiveOrZero Long id,
             @RequestBody @Valid PriorityInfo priorityInfo) {
         Priority priority = priorityService.rename(id, priorityInfo.getName());
-        return modelMapper.map(priority, PriorityInfo.class);
+        priorityChanged(id);
+        return priorityMapper.toPriorityInfo(priority);
+    }
+
+    @PatchMapping(value = "{id}", consumes = { ApiMediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    PriorityInfo patch(
+            @PathVariable("id") @PositiveOrZero Long id,
+            @RequestBody @Valid PriorityPatch priorityPatch) {
+        Priority priority = priorityWriteService.patch(id, priorityPatch);
+        priorityChanged(id);
+        return priorityMapper.toPriorityInfo(priority);
     }
 
     @PutMapping("/swap")
     void swap(@RequestBody @Valid SwapParameter swapParameter) {
         priorityService.swap(swapParameter.getFrom(), swapParameter.getTo());
+        prioritiesChanged();
+    }
+
+    @PutMapping("/move")
+    PriorityInfo move(@RequestBody @Valid MoveParameter moveParameter) {
+        Priority priority = priorityWriteService.move(moveParameter.getFrom(), moveParameter.getTo());
+        prioritiesChanged();
+        return priorityMapper.toPriorityInfo(priority);
+    }
+
+    @PutMapping("/order")
+    void order(@RequestBody @NotEmpty List<@NotNull @PositiveOrZero Long> ids) {
+        priorityWriteService.reorder(ids);
+        prioritiesChanged();
     }
 
     @DeleteMapping("{id}")
     void delete(@PathVariable("id") @PositiveOrZero Long id) {
         priorityService.deleteById(id);
+        prioritiesChanged();
     }
 
     @DeleteMapping
     void delete(@RequestParam("ids") @NotEmpty Set<Long> ids) {
         CheckUtils.assertNegativeIds(ids);
         priorityService.deleteAllById(ids);
+        prioritiesChanged();
     }
 
     @DeleteMapping("/all")
     void delete() {
         priorityService.deleteAll();
+        prioritiesChanged();
     }
 
     @GetMapping
+    @Transactional(readOnly = true)
     Page<PriorityInfo> page(@PageableDefault(size = 20, sort = Fields.position) Pageable pageable) {
-        return priorityRepository.findAll(pageable)
-                .map(priority -> modelMapper.map(priority, PriorityInfo.class));
+        Page<Priority> priorities = priorityRepository.findAll(pageable);
+        return mappingTimer.record(PriorityController.class, "page", () -> priorities.map(priorityMapper::toPriorityInfo));
+    }
+
+    @GetMapping(params = "limit")
+    @Transactional(readOnly = true)
+    CursorPage<PriorityInfo> pageAfter(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam("limit") @Min(1) @Max(1000) int limit) {
+        long position = CursorUtils.decode(after);
+        List<Priority> priorities = priorityApiRepository.findByPositionGreaterThanOrderByPosition(position, PageRequest.of(0, limit + 1));
+        return mappingTimer.record(PriorityController.class, "pageAfter",
+                () -> CursorUtils.toCursorPage(priorities, limit, Priority::getPosition, priorityMapper::toPriorityInfo));
     }
 
     @GetMapping("/all")
-    List<PriorityInfo> all() {
-        return priorityService.getAll().stream()
-                .map(priority -> modelMapper.map(priority, PriorityInfo.class))
-                .toList();
+    @Transactional(readOnly = true, label = ReplicaRoutingJpaTransactionManager.PRIMARY_LABEL)
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = PriorityInfo.class))))
+    ResponseEntity<byte[]> all(WebRequest request, HttpServletResponse response) {
+        String etag = tableVersions.priorityEtag();
+        // Set before the check, so that 304s carry it too
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if(request.checkNotModified(etag)) {
+            return null;
+        }
+        byte[] body = priorityJsonCache.getAll(etag,
+                () -> mappingTimer.map(PriorityController.class, "all", priorityService.getAll(), priorityMapper::toPriorityInfo));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ApiResponse(responseCode = "200", description = "One priority per line", content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+            schema = @Schema(implementation = PriorityInfo.class)))
+    ResponseEntity<StreamingResponseBody> allAsNdjson(WebRequest request, HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if(request.checkNotModified(TableVersions.ndjsonEtag(tableVersions.priorityEtag()))) {
+            return null;
+        }
+        // The streaming return value handler does not apply the produces type on its own
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonWriter.write(priorityApiRepository::streamAllByOrderByPosition, priorityMapper::toPriorityInfo));
     }
 
     @GetMapping("/search")
+    @Transactional(readOnly = true)
     List<PriorityInfo> getAllById(@RequestParam("ids") @NotEmpty Set<Long> ids) {
         CheckUtils.assertNegativeIds(ids);
-        return priorityService.getAllById(ids).stream()
-                .map(priority -> modelMapper.map(priority, PriorityInfo.class))
-                .toList();
+        return mappingTimer.map(PriorityController.class, "getAllById", priorityService.getAllById(ids), priorityMapper::toPriorityInfo);
     }
 
     @GetMapping("{id}")
-    PriorityInfo getById(@PathVariable("id") @PositiveOrZero Long id) {
-        Priority priority = priorityService.getById(id);
-        return modelMapper.map(priority, PriorityInfo.class);
+    @Transactional(readOnly = true, label = ReplicaRoutingJpaTransactionManager.PRIMARY_LABEL)
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = PriorityInfo.class)))
+    ResponseEntity<byte[]> getById(@PathVariable("id") @PositiveOrZero Long id) {
+        byte[] body = priorityJsonCache.getById(tableVersions.priorityEtag(), id, () -> {
+            PriorityInfo priorityInfo = priorityLoader.load(id);
+            if(priorityInfo == null) {
+                throw new ValidationException("Priority with ID " + id + " doesn't exist.");
+            }
+            return priorityInfo;
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * For changes no todo sees, such as appending a priority.
+     */
+    private void priorityChanged() {
+        priorityCache.invalidateAll();
+        tableVersions.priorityChanged();
+        priorityJsonCache.invalidateAll();
+    }
+
+    /**
+     * Todos embed their priority, so the todos that have the changed one are journaled for delta sync.
+     */
+    private void priorityChanged(Long id) {
+        priorityChanged();
+        todoChangeLog.upserted(todoApiRepository.findIdsByPriorityId(id));
+    }
+
+    /**
+     * Positions of several priorities changed, or todos lost theirs, so every client resets on its next sync.
+     */
+    private void prioritiesChanged() {
+        priorityChanged();
+        todoChangeLog.cleared();
     }
 }
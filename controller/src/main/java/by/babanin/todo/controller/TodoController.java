@@ -1,15 +1,23 @@
 package by.babanin.todo.controller;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -17,122 +25,300 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import by.babanin.todo.application.repository.TodoRepository;
-import by.babanin.todo.application.service.PriorityService;
 import by.babanin.todo.application.service.TodoService;
+import by.babanin.todo.controller.batch.BatchLoader;
+import by.babanin.todo.controller.cache.PriorityCache;
+import by.babanin.todo.controller.cache.TableVersions;
+import by.babanin.todo.controller.datasource.ReplicaRoutingJpaTransactionManager;
+import by.babanin.todo.controller.dto.CursorPage;
+import by.babanin.todo.controller.dto.MoveParameter;
 import by.babanin.todo.controller.dto.SwapParameter;
+import by.babanin.todo.controller.dto.TodoChanges;
 import by.babanin.todo.controller.dto.TodoInfo;
+import by.babanin.todo.controller.dto.TodoPatch;
 import by.babanin.todo.controller.dto.TodoToCreate;
 import by.babanin.todo.controller.dto.TodoToUpdate;
+import by.babanin.todo.controller.json.JsonSingleFlight;
+import by.babanin.todo.controller.mapper.TodoMapper;
+import by.babanin.todo.controller.metrics.MappingTimer;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.controller.repository.TodoRow;
+import by.babanin.todo.controller.service.TodoBatchService;
+import by.babanin.todo.controller.service.TodoPositionService;
+import by.babanin.todo.controller.service.TodoSyncService;
+import by.babanin.todo.controller.service.TodoWriteService;
+import by.babanin.todo.controller.stream.NdjsonWriter;
+import by.babanin.todo.controller.sync.TodoChangeLog;
 import by.babanin.todo.model.Priority;
 import by.babanin.todo.model.Priority.Fields;
 import by.babanin.todo.model.Todo;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.ValidationException;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 
 @RestController
 @RequestMapping("/todo")
 @Validated
 public class TodoController {
 
+    private static final Sort POSITION_ORDER = Sort.by(Fields.position);
+
     private final TodoService todoService;
-    private final PriorityService priorityService;
-    private final TodoRepository todoRepository;
-    private final ModelMapper modelMapper;
+    private final PriorityCache priorityCache;
+    private final TodoApiRepository todoApiRepository;
+    private final TodoMapper todoMapper;
+    private final NdjsonWriter ndjsonWriter;
+    private final TodoBatchService todoBatchService;
+    private final TodoWriteService todoWriteService;
+    private final TableVersions tableVersions;
+    private final JsonSingleFlight jsonSingleFlight;
+    private final TodoChangeLog todoChangeLog;
+    private final TodoSyncService todoSyncService;
+    private final BatchLoader<Long, TodoRow> todoLoader;
+    private final TodoPositionService todoPositionService;
+    private final MappingTimer mappingTimer;
 
-    public TodoController(TodoService todoService, PriorityService priorityService, TodoRepository todoRepository, ModelMapper modelMapper) {
+    public TodoController(
+            TodoService todoService,
+            PriorityCache priorityCache,
+            TodoApiRepository todoApiRepository,
+            TodoMapper todoMapper,
+            NdjsonWriter ndjsonWriter,
+            TodoBatchService todoBatchService,
+            TodoWriteService todoWriteService,
+            TableVersions tableVersions,
+            JsonSingleFlight jsonSingleFlight,
+            TodoChangeLog todoChangeLog,
+            TodoSyncService todoSyncService,
+            BatchLoader<Long, TodoRow> todoLoader,
+            TodoPositionService todoPositionService,
+            MappingTimer mappingTimer) {
         this.todoService = todoService;
-        this.priorityService = priorityService;
-        this.todoRepository = todoRepository;
-        this.modelMapper = modelMapper;
+        this.priorityCache = priorityCache;
+        this.todoApiRepository = todoApiRepository;
+        this.todoMapper = todoMapper;
+        this.ndjsonWriter = ndjsonWriter;
+        this.todoBatchService = todoBatchService;
+        this.todoWriteService = todoWriteService;
+        this.tableVersions = tableVersions;
+        this.jsonSingleFlight = jsonSingleFlight;
+        this.todoChangeLog = todoChangeLog;
+        this.todoSyncService = todoSyncService;
+        this.todoLoader = todoLoader;
+        this.todoPositionService = todoPositionService;
+        this.mappingTimer = mappingTimer;
     }
 
     @PostMapping
     TodoInfo create(@RequestBody @Valid TodoToCreate todoToCreate) {
-        Todo todo;
-        Long position = todoToCreate.getPosition();
         Long priorityId = todoToCreate.getPriorityId();
         Priority priority = null;
         if(priorityId != null) {
-            priority = priorityService.getById(priorityId);
-        }
-        if(position == null) {
-            todo = todoService.create(
-                    todoToCreate.getTitle(),
-                    todoToCreate.getDescription(),
-                    priority,
-                    todoToCreate.getPlannedDate()
-            );
+            priority = priorityCache.getById(priorityId);
         }
-        else {
-            todo = todoService.create(
-                    position,
-                    todoToCreate.getTitle(),
-                    todoToCreate.getDescription(),
-                    priority,
-                    todoToCreate.getPlannedDate()
-            );
+        TodoWriteService.Placement placement = todoWriteService.create(todoToCreate, priority);
+        Todo todo = placement.todo();
+        if(placement.shifted()) {
+            todoChangeLog.shifted(todoToCreate.getPosition());
         }
-        return modelMapper.map(todo, TodoInfo.class);
+        todoChanged(List.of(todo.getId()));
+        return todoPositionService.toIndex(todoMapper.toTodoInfo(todo));
+    }
+
+    @PostMapping("/batch")
+    List<TodoInfo> create(@RequestBody @NotEmpty @Size(max = 1000) List<@Valid TodoToCreate> todosToCreate) {
+        List<Todo> todos = todoBatchService.create(todosToCreate);
+        todoChanged(todos.stream().map(Todo::getId).toList());
+        return todoPositionService.toIndexes(mappingTimer.map(TodoController.class, "createBatch", todos, todoMapper::toTodoInfo));
     }
 
     @PutMapping("{id}")
     TodoInfo update(
             @PathVariable("id") @PositiveOrZero Long id,
             @RequestBody @Valid TodoToUpdate todoToUpdate) {
-        Todo todo = modelMapper.map(todoToUpdate, Todo.class);
-        todo.setId(id);
-        todo = todoService.save(todo);
-        return modelMapper.map(todo, TodoInfo.class);
+        Todo todo = todoWriteService.update(id, todoToUpdate);
+        todoChanged(List.of(id));
+        return todoPositionService.toIndex(todoMapper.toTodoInfo(todo));
+    }
+
+    @PatchMapping(value = "{id}", consumes = { ApiMediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    TodoInfo patch(
+            @PathVariable("id") @PositiveOrZero Long id,
+            @RequestBody @Valid TodoPatch todoPatch) {
+        Todo todo = todoWriteService.patch(id, todoPatch);
+        todoChanged(List.of(id));
+        return todoPositionService.toIndex(todoMapper.toTodoInfo(todo));
+    }
+
+    @PutMapping("/batch")
+    List<TodoInfo> update(@RequestBody @NotEmpty @Size(max = 1000) Map<@PositiveOrZero Long, @Valid TodoToUpdate> todosToUpdate) {
+        List<Todo> todos = todoBatchService.update(todosToUpdate);
+        todoChanged(todosToUpdate.keySet());
+        return todoPositionService.toIndexes(mappingTimer.map(TodoController.class, "updateBatch", todos, todoMapper::toTodoInfo));
     }
 
     @PutMapping("/swap")
     void swap(@RequestBody @Valid SwapParameter swapParameter) {
-        todoService.swap(swapParameter.getFrom(), swapParameter.getTo());
+        todoChanged(todoWriteService.swap(swapParameter.getFrom(), swapParameter.getTo()));
+    }
+
+    @PutMapping("/move")
+    TodoInfo move(@RequestBody @Valid MoveParameter moveParameter) {
+        long from = moveParameter.getFrom();
+        long to = moveParameter.getTo();
+        TodoWriteService.Placement placement = todoWriteService.move(from, to);
+        Todo todo = placement.todo();
+        if(placement.shifted()) {
+            todoChangeLog.shifted(Math.min(from, to));
+        }
+        todoChanged(List.of(todo.getId()));
+        return todoPositionService.toIndex(todoMapper.toTodoInfo(todo));
+    }
+
+    @PutMapping("/order")
+    void order(@RequestBody @NotEmpty List<@NotNull @PositiveOrZero Long> ids) {
+        todoWriteService.reorder(ids);
+        todoChangeLog.shifted(0);
+        tableVersions.todoChanged();
     }
 
     @DeleteMapping("{id}")
     void delete(@PathVariable("id") @PositiveOrZero Long id) {
-        todoService.deleteById(id);
+        todosDeleted(todoWriteService.delete(List.of(id)));
     }
 
     @DeleteMapping
     void delete(@RequestParam("ids") @NotEmpty Set<Long> ids) {
         CheckUtils.assertNegativeIds(ids);
-        todoService.deleteAllById(ids);
+        todosDeleted(todoWriteService.delete(ids));
     }
 
     @DeleteMapping("/all")
     void delete() {
         todoService.deleteAll();
+        todoChangeLog.cleared();
+        tableVersions.todoChanged();
     }
 
     @GetMapping
+    @Transactional(readOnly = true)
     Page<TodoInfo> page(@PageableDefault(size = 20, sort = Fields.position) Pageable pageable) {
-        return todoRepository.findAll(pageable)
-                .map(priority -> modelMapper.map(priority, TodoInfo.class));
+        Page<TodoRow> rows = todoApiRepository.findRows(pageable);
+        Page<TodoInfo> page = mappingTimer.record(TodoController.class, "page", () -> rows.map(todoMapper::toTodoInfo));
+        if(POSITION_ORDER.equals(pageable.getSort())) {
+            todoPositionService.toIndexes(page.getContent(), pageable.getOffset());
+        }
+        else {
+            todoPositionService.toIndexes(page.getContent());
+        }
+        return page;
+    }
+
+    @GetMapping(params = "limit")
+    @Transactional(readOnly = true)
+    CursorPage<TodoInfo> pageAfter(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam("limit") @Min(1) @Max(1000) int limit) {
+        CursorUtils.Cursor cursor = CursorUtils.decodeCursor(after);
+        List<TodoRow> rows = todoApiRepository.findRowsByPositionGreaterThan(cursor.position(), PageRequest.of(0, limit + 1));
+        CursorPage<TodoInfo> page = mappingTimer.record(TodoController.class, "pageAfter",
+                () -> CursorUtils.toCursorPage(rows, limit, TodoRow::position, cursor.index(), todoMapper::toTodoInfo));
+        todoPositionService.toIndexes(page.content(), cursor.index() + 1);
+        return page;
     }
 
+    /**
+     * Concurrent requests for the same version share one query and one serialized body. Reads the primary,
+     * as a body read from a replica that lags behind could be stored under the current ETag.
+     */
     @GetMapping("/all")
-    List<TodoInfo> all() {
-        return todoService.getAll().stream()
-                .map(priority -> modelMapper.map(priority, TodoInfo.class))
-                .toList();
+    @Transactional(readOnly = true, label = ReplicaRoutingJpaTransactionManager.PRIMARY_LABEL)
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = TodoInfo.class))))
+    ResponseEntity<byte[]> all(WebRequest request, HttpServletResponse response) {
+        String etag = tableVersions.todoEtag();
+        // Set before the check, so that 304s carry it too
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if(request.checkNotModified(etag)) {
+            return null;
+        }
+        byte[] body = jsonSingleFlight.write(etag, () -> todoPositionService.toIndexes(
+                mappingTimer.map(TodoController.class, "all", todoApiRepository.findAllRows(), todoMapper::toTodoInfo), 0));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ApiResponse(responseCode = "200", description = "One todo per line", content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+            schema = @Schema(implementation = TodoInfo.class)))
+    ResponseEntity<StreamingResponseBody> allAsNdjson(WebRequest request, HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if(request.checkNotModified(TableVersions.ndjsonEtag(tableVersions.todoEtag()))) {
+            return null;
+        }
+        // The streaming return value handler does not apply the produces type on its own
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonWriter.write(todoApiRepository::streamAllByOrderByPosition, todoPositionService.inOrder(todoMapper::toTodoInfo)));
+    }
+
+    @GetMapping("/changes")
+    @Transactional(readOnly = true, label = ReplicaRoutingJpaTransactionManager.PRIMARY_LABEL)
+    TodoChanges changes(@RequestParam(name = "since", required = false) String since) {
+        TodoSyncService.Changes changes = todoSyncService.changesSince(since);
+        List<TodoInfo> upserts = mappingTimer.map(TodoController.class, "changes", changes.upserts(), todoMapper::toTodoInfo);
+        if(changes.reset()) {
+            todoPositionService.toIndexes(upserts, 0);
+        }
+        else {
+            todoPositionService.toIndexes(upserts);
+        }
+        return new TodoChanges(changes.token(), changes.reset(), upserts, changes.deletes());
     }
 
     @GetMapping("/search")
+    @Transactional(readOnly = true)
     List<TodoInfo> getAllById(@RequestParam("ids") @NotEmpty Set<Long> ids) {
         CheckUtils.assertNegativeIds(ids);
-        return todoService.getAllById(ids).stream()
-                .map(priority -> modelMapper.map(priority, TodoInfo.class))
-                .toList();
+        return todoPositionService.toIndexes(
+                mappingTimer.map(TodoController.class, "getAllById", todoApiRepository.findRowsById(ids), todoMapper::toTodoInfo));
     }
 
     @GetMapping("{id}")
+    @Transactional(readOnly = true, label = ReplicaRoutingJpaTransactionManager.PRIMARY_LABEL)
     TodoInfo getById(@PathVariable("id") @PositiveOrZero Long id) {
-        Todo todo = todoService.getById(id);
-        return modelMapper.map(todo, TodoInfo.class);
+        TodoRow row = todoLoader.load(id);
+        if(row == null) {
+            throw new ValidationException("Todo with ID " + id + " doesn't exist.");
+        }
+        return todoPositionService.toIndex(todoMapper.toTodoInfo(row));
+    }
+
+    private void todoChanged(Collection<Long> ids) {
+        todoChangeLog.upserted(ids);
+        tableVersions.todoChanged();
+    }
+
+    /**
+     * Todos after a deleted one move up, so they are journaled as shifted too.
+     */
+    private void todosDeleted(TodoWriteService.Deletion deletion) {
+        todoChangeLog.deleted(deletion.ids());
+        todoChangeLog.shifted(deletion.position());
+        tableVersions.todoChanged();
     }
 }
@@ -0,0 +1,148 @@
+package by.babanin.todo.controller.batch;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces single-key lookups that arrive within {@code window} of each other into one bulk load
+ * of at most {@code maxBatchSize} keys. The caller that opens a batch waits for the window and then loads it,
+ * unless the batch fills up first, in which case the caller that fills it loads it right away.
+ * Everybody else just waits for their value, so no extra threads are involved.
+ * Values are handed to every caller of the batch, so the loader should return detached rows or DTOs.
+ * <p>
+ * A zero window turns coalescing off: every lookup is loaded on its own.
+ * Sizes of loaded batches are recorded as {@code api.batch.size} tagged with the loader name.
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<Set<K>, Map<K, V>> loader;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+    // Not a monitor, which would pin the carrier thread of a waiting virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<K, CompletableFuture<V>> pending = new HashMap<>();
+
+    public BatchLoader(String name, Function<Set<K>, Map<K, V>> loader, Duration window, int maxBatchSize, MeterRegistry meterRegistry) {
+        this.loader = loader;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("api.batch.size")
+                .description("Keys loaded by one query of a batch loader")
+                .tag("loader", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the loaded value, or {@code null} if there is none for the key
+     */
+    public V load(K key) {
+        if(window.isZero()) {
+            batchSizes.record(1);
+            return loader.apply(Set.of(key)).get(key);
+        }
+        CompletableFuture<V> future;
+        Map<K, CompletableFuture<V>> batch;
+        boolean leader = false;
+        boolean full = false;
+        lock.lock();
+        try {
+            batch = pending;
+            future = batch.get(key);
+            if(future == null) {
+                leader = batch.isEmpty();
+                future = new CompletableFuture<>();
+                batch.put(key, future);
+                if(batch.size() >= maxBatchSize) {
+                    pending = new HashMap<>();
+                    full = true;
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        if(full) {
+            dispatch(batch);
+        }
+        else if(leader) {
+            awaitWindow(future);
+            if(take(batch)) {
+                dispatch(batch);
+            }
+        }
+        return await(future);
+    }
+
+    private void awaitWindow(CompletableFuture<V> future) {
+        try {
+            future.get(window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch(ExecutionException | TimeoutException e) {
+            // the batch either failed, which await reports, or is still pending and is dispatched by the leader
+        }
+    }
+
+    /**
+     * @return {@code true} if the batch was still pending, i.e. nobody has dispatched it yet
+     */
+    private boolean take(Map<K, CompletableFuture<V>> batch) {
+        lock.lock();
+        try {
+            if(pending != batch) {
+                return false;
+            }
+            pending = new HashMap<>();
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        batchSizes.record(batch.size());
+        try {
+            Map<K, V> values = loader.apply(batch.keySet());
+            batch.forEach((key, future) -> future.complete(values.get(key)));
+        }
+        catch(Throwable e) {
+            // Errors too, or the callers waiting for this batch would never be released
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            if(!(e instanceof RuntimeException)) {
+                throw e;
+            }
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        }
+        catch(CompletionException e) {
+            if(e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if(e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
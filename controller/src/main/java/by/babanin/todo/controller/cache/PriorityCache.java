@@ -0,0 +1,106 @@
+package by.babanin.todo.controller.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import by.babanin.todo.application.service.PriorityService;
+import by.babanin.todo.model.Priority;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded in-process cache of priorities by ID. The priority table is tiny and rarely changes,
+ * so todo writes resolve priorities here instead of going to the database every time.
+ * Any priority mutation must call {@link #invalidateAll()} because positions of other rows may shift too.
+ * <p>
+ * Loads are checked against a generation bumped by {@link #invalidateAll()}: rows read while an invalidation ran
+ * may predate the mutation, so they are dropped again instead of outliving it in the cache.
+ */
+public class PriorityCache implements MeterBinder {
+
+    public static final String NAME = "priorities";
+
+    private final PriorityService priorityService;
+    private final Cache<Long, Priority> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public PriorityCache(PriorityService priorityService, long maximumSize, Duration expireAfterWrite) {
+        this.priorityService = priorityService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Fails the way {@link PriorityService#getById} does when the priority doesn't exist.
+     */
+    public Priority getById(Long id) {
+        Priority priority = cache.getIfPresent(id);
+        if(priority == null) {
+            long loadGeneration = generation.get();
+            priority = priorityService.getById(id);
+            put(loadGeneration, List.of(priority));
+        }
+        return priority;
+    }
+
+    public Optional<Priority> findById(Long id) {
+        return Optional.ofNullable(getAllById(Set.of(id)).get(id));
+    }
+
+    /**
+     * Loads the priorities missing from the cache with one query. IDs that don't exist are left out of the result.
+     */
+    public Map<Long, Priority> getAllById(Set<Long> ids) {
+        Map<Long, Priority> priorities = new HashMap<>(cache.getAllPresent(ids));
+        if(priorities.size() < ids.size()) {
+            long loadGeneration = generation.get();
+            Set<Long> missingIds = new HashSet<>(ids);
+            missingIds.removeAll(priorities.keySet());
+            List<Priority> loaded = priorityService.getAllById(missingIds);
+            for(Priority priority : loaded) {
+                priorities.put(priority.getId(), priority);
+            }
+            put(loadGeneration, loaded);
+        }
+        return priorities;
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Either the invalidation that makes the generation differ ran before the check and the entries are removed here,
+     * or it runs after the put and removes them itself.
+     */
+    private void put(long loadGeneration, Collection<Priority> priorities) {
+        for(Priority priority : priorities) {
+            cache.put(priority.getId(), priority);
+        }
+        if(generation.get() != loadGeneration) {
+            for(Priority priority : priorities) {
+                cache.invalidate(priority.getId());
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+}
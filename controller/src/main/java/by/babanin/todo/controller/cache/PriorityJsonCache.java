@@ -0,0 +1,77 @@
+package by.babanin.todo.controller.cache;
+
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Encoded JSON bodies of priority reads, so that a hit skips the query, the mapping and the serialization.
+ * Entries are keyed by the priority ETag they were computed for: a body computed concurrently with a mutation
+ * lands under the old version and is never served again, even if it is stored after {@link #invalidateAll()}.
+ * Concurrent misses of the list share one computation. Misses by ID are computed outside the cache, as their
+ * suppliers may block on a {@link by.babanin.todo.controller.batch.BatchLoader} batch and must not hold a cache lock
+ * meanwhile.
+ */
+public class PriorityJsonCache implements MeterBinder {
+
+    public static final String NAME = "priorityJson";
+
+    private final ObjectWriter objectWriter;
+    private final Cache<Key, byte[]> cache;
+
+    public PriorityJsonCache(ObjectMapper objectMapper, long maximumSize) {
+        this.objectWriter = objectMapper.writer();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    public byte[] getAll(String etag, Supplier<?> body) {
+        return cache.get(new Key(etag, null), key -> write(body.get()));
+    }
+
+    public byte[] getById(String etag, Long id, Supplier<?> body) {
+        Key key = new Key(etag, id);
+        byte[] cached = cache.getIfPresent(key);
+        if(cached != null) {
+            return cached;
+        }
+        byte[] written = write(body.get());
+        cache.put(key, written);
+        return written;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+
+    private byte[] write(Object body) {
+        try {
+            return objectWriter.writeValueAsBytes(body);
+        }
+        catch(JsonProcessingException e) {
+            throw new IllegalStateException("Can't write JSON body", e);
+        }
+    }
+
+    /**
+     * @param id {@code null} for the list of all priorities
+     */
+    private record Key(String etag, Long id) {
+
+    }
+}
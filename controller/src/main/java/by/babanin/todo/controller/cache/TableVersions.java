@@ -0,0 +1,43 @@
+package by.babanin.todo.controller.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cheap in-process versions of the todo and priority tables, bumped by every mutation that goes through the API.
+ * ETags are built from them so that conditional list requests are answered without touching the database.
+ * The instance prefix makes ETags issued before a restart never match again.
+ * ETags are weak because the same version is served both gzip-compressed and uncompressed.
+ * JSON and NDJSON lists of the same version are different bodies, so they get different ETags, see {@link #ndjsonEtag}.
+ */
+public class TableVersions {
+
+    private final String instance = Long.toString(System.nanoTime(), Character.MAX_RADIX);
+    private final AtomicLong todoVersion = new AtomicLong();
+    private final AtomicLong priorityVersion = new AtomicLong();
+
+    public long todoChanged() {
+        return todoVersion.incrementAndGet();
+    }
+
+    public long priorityChanged() {
+        return priorityVersion.incrementAndGet();
+    }
+
+    /**
+     * Todo responses embed priorities, so their ETag depends on both tables.
+     */
+    public String todoEtag() {
+        return "W/\"" + instance + "-t" + todoVersion.get() + "-p" + priorityVersion.get() + "\"";
+    }
+
+    public String priorityEtag() {
+        return "W/\"" + instance + "-p" + priorityVersion.get() + "\"";
+    }
+
+    /**
+     * ETag of the NDJSON representation of the version {@code etag} stands for.
+     */
+    public static String ndjsonEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-ndjson\"";
+    }
+}
@@ -1,35 +1,41 @@
 package by.babanin.todo.controller.config;
 
-import org.modelmapper.Converter;
-import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 
-import by.babanin.todo.application.service.PriorityService;
-import by.babanin.todo.controller.dto.TodoToUpdate;
-import by.babanin.todo.model.Priority;
-import by.babanin.todo.model.Todo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import by.babanin.todo.controller.datasource.PrimaryReadTransactionTemplate;
+import by.babanin.todo.controller.json.JsonSingleFlight;
+import by.babanin.todo.controller.mapper.PriorityMapper;
+import by.babanin.todo.controller.mapper.TodoMapper;
+import by.babanin.todo.controller.stream.NdjsonWriter;
+import jakarta.persistence.EntityManager;
 
 @Configuration
 public class ApiConfiguration {
 
     @Bean
-    ModelMapper modelMapper(Converter<Long, Priority> priorityIdConverter) {
-        ModelMapper modelMapper = new ModelMapper();
-        modelMapper.createTypeMap(TodoToUpdate.class, Todo.class)
-                .addMappings(mapping -> mapping.using(priorityIdConverter)
-                        .map(TodoToUpdate::getPriorityId, Todo::setPriority));
-        return modelMapper;
+    PriorityMapper priorityMapper() {
+        return new PriorityMapper();
+    }
+
+    @Bean
+    TodoMapper todoMapper(PriorityMapper priorityMapper) {
+        return new TodoMapper(priorityMapper);
+    }
+
+    @Bean
+    JsonSingleFlight jsonSingleFlight(ObjectMapper objectMapper) {
+        return new JsonSingleFlight(objectMapper);
     }
 
     @Bean
-    Converter<Long, Priority> priorityIdConverter(PriorityService service) {
-        return context -> {
-            Long priorityId = context.getSource();
-            if(priorityId != null) {
-                return service.getById(priorityId);
-            }
-            return null;
-        };
+    NdjsonWriter ndjsonWriter(ObjectMapper objectMapper, PlatformTransactionManager transactionManager, EntityManager entityManager) {
+        // The ETag of a streamed body is the current version, so its rows must not come from a lagging replica
+        return new NdjsonWriter(objectMapper, new PrimaryReadTransactionTemplate(transactionManager, TransactionDefinition.PROPAGATION_REQUIRED),
+                entityManager);
     }
 }
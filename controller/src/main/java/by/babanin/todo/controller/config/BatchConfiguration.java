@@ -0,0 +1,60 @@
+package by.babanin.todo.controller.config;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionOperations;
+
+import by.babanin.todo.application.service.PriorityService;
+import by.babanin.todo.controller.batch.BatchLoader;
+import by.babanin.todo.controller.datasource.PrimaryReadTransactionTemplate;
+import by.babanin.todo.controller.dto.PriorityInfo;
+import by.babanin.todo.controller.mapper.PriorityMapper;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.controller.repository.TodoRow;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Batches are loaded in a transaction of their own, rather than in the one of whichever caller happens to load them,
+ * and are handed out as DTOs, which don't belong to any persistence context. The transaction reads the primary,
+ * as the callers of one batch may differ in where their own transactions would read from.
+ */
+@Configuration
+public class BatchConfiguration {
+
+    @Bean
+    BatchLoader<Long, TodoRow> todoLoader(
+            TodoApiRepository todoApiRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${api.batch.window:2ms}") Duration window,
+            @Value("${api.batch.max-size:100}") int maxBatchSize) {
+        TransactionOperations transaction = batchTransaction(transactionManager);
+        return new BatchLoader<>("todo", ids -> transaction.execute(status -> todoApiRepository.findRowsById(ids).stream()
+                .collect(Collectors.toMap(TodoRow::id, Function.identity()))), window, maxBatchSize, meterRegistry);
+    }
+
+    @Bean
+    BatchLoader<Long, PriorityInfo> priorityLoader(
+            PriorityService priorityService,
+            PriorityMapper priorityMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${api.batch.window:2ms}") Duration window,
+            @Value("${api.batch.max-size:100}") int maxBatchSize) {
+        TransactionOperations transaction = batchTransaction(transactionManager);
+        return new BatchLoader<>("priority", ids -> transaction.execute(status -> priorityService.getAllById(ids).stream()
+                .map(priorityMapper::toPriorityInfo)
+                .collect(Collectors.toMap(PriorityInfo::getId, Function.identity()))), window, maxBatchSize, meterRegistry);
+    }
+
+    private static TransactionOperations batchTransaction(PlatformTransactionManager transactionManager) {
+        return new PrimaryReadTransactionTemplate(transactionManager, TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+}
@@ -0,0 +1,44 @@
+package by.babanin.todo.controller.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import by.babanin.todo.application.service.PriorityService;
+import by.babanin.todo.controller.cache.PriorityCache;
+import by.babanin.todo.controller.cache.PriorityJsonCache;
+import by.babanin.todo.controller.cache.TableVersions;
+import by.babanin.todo.controller.sync.TodoChangeLog;
+
+@Configuration
+public class CacheConfiguration {
+
+    @Bean
+    PriorityCache priorityCache(
+            PriorityService priorityService,
+            @Value("${api.cache.priority.maximum-size:256}") long maximumSize,
+            @Value("${api.cache.priority.expire-after-write:10m}") Duration expireAfterWrite) {
+        return new PriorityCache(priorityService, maximumSize, expireAfterWrite);
+    }
+
+    @Bean
+    PriorityJsonCache priorityJsonCache(
+            ObjectMapper objectMapper,
+            @Value("${api.cache.priority-json.maximum-size:1024}") long maximumSize) {
+        return new PriorityJsonCache(objectMapper, maximumSize);
+    }
+
+    @Bean
+    TableVersions tableVersions() {
+        return new TableVersions();
+    }
+
+    @Bean
+    TodoChangeLog todoChangeLog(@Value("${api.sync.todo.capacity:10000}") int capacity) {
+        return new TodoChangeLog(capacity);
+    }
+}
@@ -0,0 +1,92 @@
+package by.babanin.todo.controller.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import by.babanin.todo.controller.datasource.ReplicaRoutingDataSource;
+import by.babanin.todo.controller.datasource.ReplicaRoutingJpaTransactionManager;
+
+/**
+ * Hands out pooled connections only when the first statement runs, so that read-only transactions answered
+ * without SQL (304s, cache hits, callers waiting for a batch) don't hold a connection.
+ * Routes read-only transactions to a replica when {@code api.datasource.replica.url} is set.
+ * Both pools take their settings from {@code spring.datasource.hikari.*};
+ * the replica reuses the primary credentials unless {@code api.datasource.replica.username} and {@code password} are set.
+ */
+@Configuration
+public class DataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(HikariDataSource primaryDataSource, ObjectProvider<ReplicaRoutingDataSource> routingDataSource) {
+        DataSource target = routingDataSource.getIfAvailable();
+        return new LazyConnectionDataSourceProxy(target != null ? target : primaryDataSource);
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "api.datasource.replica.url")
+    static class ReplicaConfiguration {
+
+        @Bean
+        @ConfigurationProperties("spring.datasource.hikari")
+        HikariDataSource replicaDataSource(
+                DataSourceProperties properties,
+                @Value("${api.datasource.replica.url}") String url,
+                @Value("${api.datasource.replica.username:${spring.datasource.username:}}") String username,
+                @Value("${api.datasource.replica.password:${spring.datasource.password:}}") String password) {
+            HikariDataSource dataSource = DataSourceBuilder.create(properties.getClassLoader())
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url)
+                    .username(username)
+                    .password(password)
+                    .build();
+            dataSource.setPoolName("replica");
+            dataSource.setReadOnly(true);
+            return dataSource;
+        }
+
+        @Bean
+        ReplicaRoutingDataSource replicaRoutingDataSource(
+                HikariDataSource primaryDataSource,
+                HikariDataSource replicaDataSource,
+                @Value("${api.datasource.replica.max-staleness:1s}") Duration maxStaleness) {
+            return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, maxStaleness);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(
+                ReplicaRoutingDataSource replicaRoutingDataSource,
+                ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+            ReplicaRoutingJpaTransactionManager transactionManager = new ReplicaRoutingJpaTransactionManager(replicaRoutingDataSource);
+            transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+            return transactionManager;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package by.babanin.todo.controller.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import by.babanin.todo.controller.json.ApiJsonModule;
+
+/**
+ * Module beans are picked up by the auto-configured {@code ObjectMapper}, so MVC responses and NDJSON streams
+ * both get them. Blackbird replaces reflective getter calls of bean serializers with generated lambdas.
+ */
+@Configuration
+@ConditionalOnProperty(name = "api.json.tuned.enabled", havingValue = "true", matchIfMissing = true)
+public class JsonConfiguration {
+
+    @Bean
+    Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    Module apiJsonModule() {
+        return new ApiJsonModule();
+    }
+}
@@ -0,0 +1,34 @@
+package by.babanin.todo.controller.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import by.babanin.todo.controller.metrics.MappingTimer;
+import by.babanin.todo.controller.metrics.PhaseTimingPostProcessor;
+import by.babanin.todo.controller.metrics.PoolSaturationMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "api.metrics.phases.enabled", havingValue = "true", matchIfMissing = true)
+    static PhaseTimingPostProcessor phaseTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new PhaseTimingPostProcessor(meterRegistry);
+    }
+
+    @Bean
+    MappingTimer mappingTimer(MeterRegistry meterRegistry, @Value("${api.metrics.phases.enabled:true}") boolean enabled) {
+        return new MappingTimer(meterRegistry, enabled);
+    }
+
+    @Bean
+    PoolSaturationMetrics poolSaturationMetrics(ObjectProvider<HikariDataSource> dataSources) {
+        return new PoolSaturationMetrics(dataSources.orderedStream().toList());
+    }
+}
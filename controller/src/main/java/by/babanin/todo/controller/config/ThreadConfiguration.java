@@ -0,0 +1,65 @@
+package by.babanin.todo.controller.config;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Runs servlet requests and async MVC work (NDJSON streaming) on virtual threads when
+ * {@code api.threads.virtual.enabled=true}. Requests then no longer queue for a Tomcat worker,
+ * so the JDBC pool becomes the limit on database concurrency. It is sized by {@code api.threads.virtual.jdbc.*},
+ * and its connection timeout is short so a saturated database fails requests instead of piling them up.
+ * Needs a Java 21 runtime. The API is still compiled for 17, so the executor is looked up reflectively.
+ */
+@Configuration
+@ConditionalOnProperty(name = "api.threads.virtual.enabled", havingValue = "true")
+public class ThreadConfiguration {
+
+    @Bean
+    TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean
+    static BeanPostProcessor virtualThreadDataSourceSizer(
+            @Value("${api.threads.virtual.jdbc.maximum-pool-size:50}") int maximumPoolSize,
+            @Value("${api.threads.virtual.jdbc.connection-timeout:5s}") Duration connectionTimeout) {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if(bean instanceof HikariDataSource dataSource) {
+                    dataSource.setMaximumPoolSize(maximumPoolSize);
+                    dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+                }
+                return bean;
+            }
+        };
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch(ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads need Java 21 or newer, running on " + Runtime.version(), e);
+        }
+    }
+}
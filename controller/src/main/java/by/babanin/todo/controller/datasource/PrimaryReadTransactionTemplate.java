@@ -0,0 +1,37 @@
+package by.babanin.todo.controller.datasource;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Read-only {@link TransactionTemplate} labelled {@value ReplicaRoutingJpaTransactionManager#PRIMARY_LABEL},
+ * the programmatic counterpart of {@code @Transactional(readOnly = true, label = PRIMARY_LABEL)}.
+ * The template passes itself as the definition of the transactions it begins, so it carries the label itself.
+ */
+public class PrimaryReadTransactionTemplate extends TransactionTemplate implements TransactionAttribute {
+
+    public PrimaryReadTransactionTemplate(PlatformTransactionManager transactionManager, int propagationBehavior) {
+        super(transactionManager);
+        setPropagationBehavior(propagationBehavior);
+        setReadOnly(true);
+    }
+
+    @Override
+    public String getQualifier() {
+        return null;
+    }
+
+    @Override
+    public Collection<String> getLabels() {
+        return List.of(ReplicaRoutingJpaTransactionManager.PRIMARY_LABEL);
+    }
+
+    @Override
+    public boolean rollbackOn(Throwable ex) {
+        return ex instanceof RuntimeException || ex instanceof Error;
+    }
+}
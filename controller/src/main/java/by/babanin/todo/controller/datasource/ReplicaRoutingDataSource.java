@@ -0,0 +1,87 @@
+package by.babanin.todo.controller.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections of read-only transactions to the replica and everything else to the primary.
+ * The decision is made when a connection is requested, so it must be wrapped into
+ * a {@link LazyConnectionDataSourceProxy}: transaction managers ask for a connection before they mark the transaction read-only.
+ * A transaction manager may instead fix the target when the transaction begins, see {@link ReplicaRoutingJpaTransactionManager}.
+ * <p>
+ * The replica lags behind the primary. For {@code maxStaleness} after a read-write transaction commits,
+ * read-only transactions stay on the primary, so that clients read their own writes.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final Object targetKey = new Object();
+    private final long maxStalenessNanos;
+    private volatile long lastWriteNanos;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxStaleness) {
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.lastWriteNanos = System.nanoTime() - maxStalenessNanos;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Target determineCurrentLookupKey() {
+        if(!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Target.PRIMARY;
+        }
+        if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if(TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                    @Override
+                    public void afterCommit() {
+                        lastWriteNanos = System.nanoTime();
+                    }
+                });
+            }
+            return Target.PRIMARY;
+        }
+        Target target = (Target) TransactionSynchronizationManager.getResource(targetKey);
+        return target != null ? target : route(true);
+    }
+
+    /**
+     * Fixes the target of the read-only transaction being begun on this thread until {@link #unbindTarget()}.
+     *
+     * @param replicaAllowed {@code false} to keep the transaction on the primary
+     */
+    Target bindTarget(boolean replicaAllowed) {
+        Target target = route(replicaAllowed);
+        TransactionSynchronizationManager.bindResource(targetKey, target);
+        return target;
+    }
+
+    void bindTarget(Target target) {
+        TransactionSynchronizationManager.bindResource(targetKey, target);
+    }
+
+    /**
+     * @return the unbound target, or {@code null} if none was bound
+     */
+    Target unbindTarget() {
+        return (Target) TransactionSynchronizationManager.unbindResourceIfPossible(targetKey);
+    }
+
+    private Target route(boolean replicaAllowed) {
+        return replicaAllowed && System.nanoTime() - lastWriteNanos >= maxStalenessNanos ? Target.REPLICA : Target.PRIMARY;
+    }
+}
@@ -0,0 +1,87 @@
+package by.babanin.todo.controller.datasource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import by.babanin.todo.controller.datasource.ReplicaRoutingDataSource.Target;
+
+/**
+ * Decides where a read-only transaction reads from when it begins, instead of when its first statement runs,
+ * so that the persistence context knows it up front: transactions routed to the replica bypass the second-level
+ * and query caches ({@link CacheMode#IGNORE}). Rows the replica hasn't caught up with yet would otherwise be served
+ * from the caches until they expire. {@link CacheMode#GET} is not enough, as Hibernate 6.1 still stores the results
+ * of cacheable queries that missed the cache.
+ * <p>
+ * Read-only transactions labelled {@value #PRIMARY_LABEL} stay on the primary. Reads that fill in-process caches of
+ * their own, which know nothing about the replica, must use it.
+ */
+public class ReplicaRoutingJpaTransactionManager extends JpaTransactionManager {
+
+    public static final String PRIMARY_LABEL = "primary";
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final Object cacheModeKey = new Object();
+
+    public ReplicaRoutingJpaTransactionManager(ReplicaRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        if(!definition.isReadOnly()) {
+            return;
+        }
+        boolean primaryRequired = definition instanceof TransactionAttribute attribute
+                && attribute.getLabels().contains(PRIMARY_LABEL);
+        if(routingDataSource.bindTarget(!primaryRequired) == Target.REPLICA) {
+            // The entity manager may outlive the transaction with open-in-view, so its mode is restored afterwards
+            Session session = currentSession();
+            TransactionSynchronizationManager.bindResource(cacheModeKey, session.getCacheMode());
+            session.setCacheMode(CacheMode.IGNORE);
+        }
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        Object suspendedResources = super.doSuspend(transaction);
+        return new SuspendedRoute(suspendedResources, routingDataSource.unbindTarget(),
+                (CacheMode) TransactionSynchronizationManager.unbindResourceIfPossible(cacheModeKey));
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        SuspendedRoute route = (SuspendedRoute) suspendedResources;
+        super.doResume(transaction, route.suspendedResources());
+        if(route.target() != null) {
+            routingDataSource.bindTarget(route.target());
+        }
+        if(route.cacheMode() != null) {
+            TransactionSynchronizationManager.bindResource(cacheModeKey, route.cacheMode());
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        CacheMode cacheMode = (CacheMode) TransactionSynchronizationManager.unbindResourceIfPossible(cacheModeKey);
+        if(cacheMode != null) {
+            currentSession().setCacheMode(cacheMode);
+        }
+        routingDataSource.unbindTarget();
+        super.doCleanupAfterCompletion(transaction);
+    }
+
+    private Session currentSession() {
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(obtainEntityManagerFactory());
+        return holder.getEntityManager().unwrap(Session.class);
+    }
+
+    private record SuspendedRoute(Object suspendedResources, Target target, CacheMode cacheMode) {
+
+    }
+}
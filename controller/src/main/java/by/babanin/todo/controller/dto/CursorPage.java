@@ -0,0 +1,10 @@
+package by.babanin.todo.controller.dto;
+
+import java.util.List;
+
+/**
+ * Slice of a position-ordered list. {@code nextCursor} is {@code null} on the last slice.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {
+
+}
@@ -0,0 +1,37 @@
+package by.babanin.todo.controller.dto;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import by.babanin.todo.controller.validation.MergePatch;
+import by.babanin.todo.controller.validation.NotClearable;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.experimental.FieldNameConstants;
+
+/**
+ * JSON Merge Patch body for a priority. Position is changed by swap/move only.
+ */
+@Data
+@FieldNameConstants
+@NotClearable(PriorityPatch.Fields.name)
+public class PriorityPatch implements MergePatch {
+
+    @Size(min = 1, max = 16)
+    String name;
+
+    @JsonIgnore
+    final Set<String> presentFields = new HashSet<>();
+
+    public void setName(String name) {
+        this.name = name;
+        presentFields.add(Fields.name);
+    }
+
+    @Override
+    public boolean isPresent(String field) {
+        return presentFields.contains(field);
+    }
+}
@@ -0,0 +1,12 @@
+package by.babanin.todo.controller.dto;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Changes after a sync token. Clients apply {@code upserts} and drop {@code deletes}, or replace their whole list
+ * with {@code upserts} when {@code reset} is set, then pass {@code token} to the next sync.
+ */
+public record TodoChanges(String token, boolean reset, List<TodoInfo> upserts, Set<Long> deletes) {
+
+}
@@ -0,0 +1,63 @@
+package by.babanin.todo.controller.dto;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import by.babanin.todo.controller.validation.MergePatch;
+import by.babanin.todo.controller.validation.NotClearable;
+import by.babanin.todo.model.Status;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.experimental.FieldNameConstants;
+
+/**
+ * JSON Merge Patch body for a todo. Setters record which fields were present in the request,
+ * so absent fields stay untouched and explicit {@code null} clears nullable ones.
+ */
+@Data
+@FieldNameConstants
+@NotClearable({ TodoPatch.Fields.title, TodoPatch.Fields.status })
+public class TodoPatch implements MergePatch {
+
+    @Size(min = 1, max = 32)
+    String title;
+
+    @Size(max = 1024)
+    String description;
+
+    @PositiveOrZero
+    Long priorityId;
+
+    Status status;
+
+    @JsonIgnore
+    final Set<String> presentFields = new HashSet<>();
+
+    public void setTitle(String title) {
+        this.title = title;
+        presentFields.add(Fields.title);
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+        presentFields.add(Fields.description);
+    }
+
+    public void setPriorityId(Long priorityId) {
+        this.priorityId = priorityId;
+        presentFields.add(Fields.priorityId);
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+        presentFields.add(Fields.status);
+    }
+
+    @Override
+    public boolean isPresent(String field) {
+        return presentFields.contains(field);
+    }
+}
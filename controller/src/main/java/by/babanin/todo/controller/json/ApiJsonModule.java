@@ -0,0 +1,16 @@
+package by.babanin.todo.controller.json;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Serializers tuned for the DTOs the API returns. Registered after the JSR-310 module, so they take precedence.
+ */
+public class ApiJsonModule extends SimpleModule {
+
+    public ApiJsonModule() {
+        super(ApiJsonModule.class.getSimpleName());
+        addSerializer(LocalDate.class, new IsoLocalDateSerializer());
+    }
+}
@@ -0,0 +1,60 @@
+package by.babanin.todo.controller.json;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import com.fasterxml.jackson.annotation.JsonFormat.Shape;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+
+/**
+ * Writes {@link LocalDate} as {@code yyyy-MM-dd}, the same text the JSR-310 module produces with
+ * {@code WRITE_DATES_AS_TIMESTAMPS} disabled, but by digit arithmetic instead of {@link LocalDate#toString()}.
+ * Every todo carries up to three dates, so this is on the path of every list response.
+ * Timestamps, patterns from {@code @JsonFormat} or config overrides and years outside {@code 0..9999}
+ * are left to {@link LocalDateSerializer}.
+ */
+public class IsoLocalDateSerializer extends LocalDateSerializer {
+
+    private static final int LENGTH = 10;
+
+    public IsoLocalDateSerializer() {
+        super();
+    }
+
+    protected IsoLocalDateSerializer(IsoLocalDateSerializer base, Boolean useTimestamp, DateTimeFormatter formatter, Shape shape) {
+        super(base, useTimestamp, formatter, shape);
+    }
+
+    @Override
+    protected IsoLocalDateSerializer withFormat(Boolean useTimestamp, DateTimeFormatter formatter, Shape shape) {
+        return new IsoLocalDateSerializer(this, useTimestamp, formatter, shape);
+    }
+
+    @Override
+    public void serialize(LocalDate value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        int year = value.getYear();
+        if(_formatter != null || useTimestamp(provider) || year < 0 || year > 9999) {
+            super.serialize(value, generator, provider);
+            return;
+        }
+        char[] chars = new char[LENGTH];
+        chars[0] = digit(year / 1000);
+        chars[1] = digit(year / 100 % 10);
+        chars[2] = digit(year / 10 % 10);
+        chars[3] = digit(year % 10);
+        chars[4] = '-';
+        chars[5] = digit(value.getMonthValue() / 10);
+        chars[6] = digit(value.getMonthValue() % 10);
+        chars[7] = '-';
+        chars[8] = digit(value.getDayOfMonth() / 10);
+        chars[9] = digit(value.getDayOfMonth() % 10);
+        generator.writeString(chars, 0, LENGTH);
+    }
+
+    private static char digit(int value) {
+        return (char) ('0' + value);
+    }
+}
@@ -0,0 +1,68 @@
+package by.babanin.todo.controller.json;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Coalesces concurrent identical requests: while a JSON body for a key is being computed, every other caller
+ * asking for the same key waits for that computation and gets the same bytes instead of running its own.
+ * Nothing is kept once the computation is over. Keys should identify the data version, e.g. an ETag,
+ * so that a caller arriving after a change never receives a body computed before it.
+ */
+public class JsonSingleFlight {
+
+    private final ObjectWriter objectWriter;
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    public JsonSingleFlight(ObjectMapper objectMapper) {
+        this.objectWriter = objectMapper.writer();
+    }
+
+    public byte[] write(String key, Supplier<?> body) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, future);
+        if(running != null) {
+            return await(running);
+        }
+        try {
+            byte[] json = objectWriter.writeValueAsBytes(body.get());
+            future.complete(json);
+            return json;
+        }
+        catch(JsonProcessingException e) {
+            IllegalStateException exception = new IllegalStateException("Can't write JSON body for " + key, e);
+            future.completeExceptionally(exception);
+            throw exception;
+        }
+        catch(Throwable e) {
+            // Errors too, or the callers waiting for this computation would never be released
+            future.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> future) {
+        try {
+            return future.join();
+        }
+        catch(CompletionException e) {
+            if(e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if(e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package by.babanin.todo.controller.load;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import by.babanin.todo.controller.repository.PositionRepository;
+import by.babanin.todo.controller.repository.PriorityApiRepository;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.model.Priority;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+
+/**
+ * Fills the empty in-memory database of the {@code load} profile with {@code api.load.seed.*} rows
+ * before the application starts serving requests, so every load test run starts from the same data volume.
+ */
+@Component
+@Profile("load")
+public class LoadDataSeeder implements ApplicationRunner {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final PriorityApiRepository priorityApiRepository;
+    private final TodoApiRepository todoApiRepository;
+    private final int priorityCount;
+    private final int todoCount;
+
+    public LoadDataSeeder(
+            PriorityApiRepository priorityApiRepository,
+            TodoApiRepository todoApiRepository,
+            @Value("${api.load.seed.priorities:10}") int priorityCount,
+            @Value("${api.load.seed.todos:10000}") int todoCount) {
+        this.priorityApiRepository = priorityApiRepository;
+        this.todoApiRepository = todoApiRepository;
+        this.priorityCount = priorityCount;
+        this.todoCount = todoCount;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Priority> priorities = new ArrayList<>(priorityCount);
+        for(int i = 0; i < priorityCount; i++) {
+            priorities.add(Priority.builder()
+                    .name("priority" + i)
+                    .position(i)
+                    .build());
+        }
+        priorities = priorityApiRepository.saveAll(priorities);
+
+        LocalDate creationDate = LocalDate.now();
+        List<Todo> todos = new ArrayList<>(CHUNK_SIZE);
+        for(int i = 0; i < todoCount; i++) {
+            todos.add(Todo.builder()
+                    .title("todo" + i)
+                    .description("description" + i)
+                    .priority(priorities.isEmpty() ? null : priorities.get(i % priorities.size()))
+                    .status(Status.OPEN)
+                    .creationDate(creationDate)
+                    .plannedDate(creationDate.plusDays(1 + i % 30))
+                    .position(i * PositionRepository.GAP)
+                    .build());
+            if(todos.size() == CHUNK_SIZE) {
+                todoApiRepository.saveAll(todos);
+                todos.clear();
+            }
+        }
+        todoApiRepository.saveAll(todos);
+    }
+}
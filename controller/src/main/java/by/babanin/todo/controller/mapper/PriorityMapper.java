@@ -0,0 +1,22 @@
+package by.babanin.todo.controller.mapper;
+
+import by.babanin.todo.controller.dto.PriorityInfo;
+import by.babanin.todo.model.Priority;
+
+/**
+ * Plain field-by-field mapper for {@link Priority} entities.
+ * It replaces the reflective {@code ModelMapper} type map on the hot response path.
+ */
+public class PriorityMapper {
+
+    public PriorityInfo toPriorityInfo(Priority priority) {
+        if(priority == null) {
+            return null;
+        }
+        PriorityInfo priorityInfo = new PriorityInfo();
+        priorityInfo.setId(priority.getId());
+        priorityInfo.setName(priority.getName());
+        priorityInfo.setPosition(priority.getPosition());
+        return priorityInfo;
+    }
+}
@@ -0,0 +1,59 @@
+package by.babanin.todo.controller.mapper;
+
+import by.babanin.todo.controller.dto.PriorityInfo;
+import by.babanin.todo.controller.dto.TodoInfo;
+import by.babanin.todo.controller.repository.TodoRow;
+import by.babanin.todo.model.Todo;
+
+/**
+ * Plain field-by-field mapper for {@link Todo} entities, {@link TodoRow} projections and the DTOs built from them.
+ */
+public class TodoMapper {
+
+    private final PriorityMapper priorityMapper;
+
+    public TodoMapper(PriorityMapper priorityMapper) {
+        this.priorityMapper = priorityMapper;
+    }
+
+    public TodoInfo toTodoInfo(Todo todo) {
+        if(todo == null) {
+            return null;
+        }
+        TodoInfo todoInfo = new TodoInfo();
+        todoInfo.setId(todo.getId());
+        todoInfo.setTitle(todo.getTitle());
+        todoInfo.setDescription(todo.getDescription());
+        todoInfo.setPriority(priorityMapper.toPriorityInfo(todo.getPriority()));
+        todoInfo.setStatus(todo.getStatus());
+        todoInfo.setCreationDate(todo.getCreationDate());
+        todoInfo.setPlannedDate(todo.getPlannedDate());
+        todoInfo.setCompletionDate(todo.getCompletionDate());
+        todoInfo.setPosition(todo.getPosition());
+        return todoInfo;
+    }
+
+    public TodoInfo toTodoInfo(TodoRow row) {
+        if(row == null) {
+            return null;
+        }
+        TodoInfo todoInfo = new TodoInfo();
+        todoInfo.setId(row.id());
+        todoInfo.setTitle(row.title());
+        todoInfo.setDescription(row.description());
+        if(row.priorityId() != null) {
+            PriorityInfo priorityInfo = new PriorityInfo();
+            priorityInfo.setId(row.priorityId());
+            priorityInfo.setName(row.priorityName());
+            priorityInfo.setPosition(row.priorityPosition());
+            todoInfo.setPriority(priorityInfo);
+        }
+        todoInfo.setStatus(row.status());
+        todoInfo.setCreationDate(row.creationDate());
+        todoInfo.setPlannedDate(row.plannedDate());
+        todoInfo.setCompletionDate(row.completionDate());
+        todoInfo.setPosition(row.position());
+        return todoInfo;
+    }
+
+}
@@ -0,0 +1,45 @@
+package by.babanin.todo.controller.metrics;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times the mapping of a whole response as {@value PhaseTimingPostProcessor#METRIC_NAME} in the {@value #MAPPING} phase,
+ * tagged with the controller and its handler method. Mappers are called once per row, so they are timed once per request
+ * around the list rather than per call, see {@link PhaseTimingPostProcessor}.
+ */
+public class MappingTimer {
+
+    public static final String MAPPING = "mapping";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    public MappingTimer(MeterRegistry meterRegistry, boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    public <T, R> List<R> map(Class<?> component, String method, List<T> source, Function<? super T, ? extends R> mapper) {
+        return record(component, method, () -> source.stream()
+                .<R>map(mapper)
+                .toList());
+    }
+
+    public <T> T record(Class<?> component, String method, Supplier<T> mapping) {
+        if(!enabled) {
+            return mapping.get();
+        }
+        return Timer.builder(PhaseTimingPostProcessor.METRIC_NAME)
+                .tag("phase", MAPPING)
+                .tag("component", component.getSimpleName())
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(mapping);
+    }
+}
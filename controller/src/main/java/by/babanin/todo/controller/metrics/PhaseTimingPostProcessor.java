@@ -0,0 +1,115 @@
+package by.babanin.todo.controller.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every public method of services and Spring Data repositories as {@value #METRIC_NAME}
+ * tagged with the phase, component and method, so that a slow endpoint can be narrowed down to the layer it spends time in.
+ * Existing proxies get the interceptor first in their chain, so service timings include the transaction commit.
+ * Mappers are left out, they are called once per row and a timer per call would cost about as much as the mapping;
+ * {@link MappingTimer} times them once per request instead. Methods returning a {@link Stream} are left out too,
+ * the rows are only read while the caller consumes the stream.
+ */
+public class PhaseTimingPostProcessor implements BeanPostProcessor {
+
+    public static final String METRIC_NAME = "api.phase";
+    public static final String SERVICE = "service";
+    public static final String REPOSITORY = "repository";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public PhaseTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopProxyUtils.ultimateTargetClass(bean);
+        String phase = getPhase(bean, targetClass);
+        if(phase == null) {
+            return bean;
+        }
+        MethodInterceptor interceptor = new PhaseTimingInterceptor(phase, getComponent(bean, targetClass));
+        if(bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy();
+    }
+
+    private static String getPhase(Object bean, Class<?> targetClass) {
+        if(bean instanceof Repository<?, ?>) {
+            return REPOSITORY;
+        }
+        if(AnnotatedElementUtils.hasAnnotation(targetClass, Service.class)) {
+            return SERVICE;
+        }
+        return null;
+    }
+
+    private static String getComponent(Object bean, Class<?> targetClass) {
+        // Spring Data proxies target SimpleJpaRepository, the repository interface is the first proxied one
+        if(bean instanceof Repository<?, ?> && bean instanceof Advised advised && advised.getProxiedInterfaces().length > 0) {
+            return advised.getProxiedInterfaces()[0].getSimpleName();
+        }
+        return targetClass.getSimpleName();
+    }
+
+    private class PhaseTimingInterceptor implements MethodInterceptor {
+
+        private final String phase;
+        private final String component;
+        private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+        PhaseTimingInterceptor(String phase, String component) {
+            this.phase = phase;
+            this.component = component;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if(method.getDeclaringClass() == Object.class || Stream.class.isAssignableFrom(method.getReturnType())) {
+                return invocation.proceed();
+            }
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            }
+            finally {
+                timers.computeIfAbsent(method, this::createTimer)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Timer createTimer(Method method) {
+            return Timer.builder(METRIC_NAME)
+                    .tag("phase", phase)
+                    .tag("component", component)
+                    .tag("method", method.getName())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry.getObject());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package by.babanin.todo.controller.metrics;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Share of busy Tomcat worker threads and of active connections of each Hikari pool as {@value #METRIC_NAME} gauges,
+ * so that a single alert can tell which pool requests are queuing for. Hikari pools are tagged {@code hikari-<pool name>},
+ * {@code hikari-primary} and, with a read replica, {@code hikari-replica}. The absolute counts come from
+ * the Spring Boot {@code tomcat.threads.*} and {@code hikaricp.connections.*} meters.
+ * The Tomcat gauge is NaN with virtual threads, where there is no worker pool to saturate.
+ */
+public class PoolSaturationMetrics implements MeterBinder, TomcatProtocolHandlerCustomizer<ProtocolHandler> {
+
+    public static final String METRIC_NAME = "api.pool.saturation";
+
+    private final List<HikariDataSource> dataSources;
+    private volatile ProtocolHandler protocolHandler;
+
+    public PoolSaturationMetrics(List<HikariDataSource> dataSources) {
+        this.dataSources = dataSources;
+    }
+
+    @Override
+    public void customize(ProtocolHandler protocolHandler) {
+        this.protocolHandler = protocolHandler;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_NAME, this, PoolSaturationMetrics::getTomcatSaturation)
+                .tag("pool", "tomcat")
+                .description("Busy worker threads divided by the maximum number of worker threads")
+                .register(registry);
+        for(HikariDataSource dataSource : dataSources) {
+            Gauge.builder(METRIC_NAME, dataSource, PoolSaturationMetrics::getHikariSaturation)
+                    .tag("pool", "hikari-" + dataSource.getPoolName())
+                    .description("Active JDBC connections divided by the maximum pool size")
+                    .register(registry);
+        }
+    }
+
+    double getTomcatSaturation() {
+        ProtocolHandler handler = protocolHandler;
+        Executor executor = handler != null ? handler.getExecutor() : null;
+        if(executor instanceof org.apache.tomcat.util.threads.ThreadPoolExecutor threadPool) {
+            return (double) threadPool.getActiveCount() / threadPool.getMaximumPoolSize();
+        }
+        if(executor instanceof java.util.concurrent.ThreadPoolExecutor threadPool) {
+            return (double) threadPool.getActiveCount() / threadPool.getMaximumPoolSize();
+        }
+        return Double.NaN;
+    }
+
+    static double getHikariSaturation(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if(pool != null) {
+            return (double) pool.getActiveConnections() / dataSource.getMaximumPoolSize();
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,42 @@
+package by.babanin.todo.controller.repository;
+
+import java.util.List;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import by.babanin.todo.model.Todo;
+
+/**
+ * Turns on dynamic update for {@link Todo}, whose mapping lives in the model module, so that flushing a changed todo
+ * writes only the changed columns. Writes through the entity then don't overwrite columns, such as the rank,
+ * that a concurrent request changed in the meantime. As an unversioned entity can't be rebuilt from a partial row,
+ * Hibernate drops the second-level cache entry of each updated todo, where a bulk statement evicts the whole region.
+ * <p>
+ * Registered with {@code hibernate.integrator_provider}; it runs before the entity persisters are built.
+ */
+public class DynamicUpdateIntegrator implements Integrator, IntegratorProvider {
+
+    @Override
+    public List<Integrator> getIntegrators() {
+        return List.of(this);
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        PersistentClass binding = metadata.getEntityBinding(Todo.class.getName());
+        if(binding != null) {
+            binding.setDynamicUpdate(true);
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        // Nothing to release
+    }
+}
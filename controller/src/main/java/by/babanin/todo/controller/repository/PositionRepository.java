@@ -0,0 +1,99 @@
+package by.babanin.todo.controller.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repository fragment for position-ordered tables. The API addresses rows by their 0-based index in position order,
+ * while the stored position is only a sort key (rank). In a gapped table consecutive ranks are normally {@link #GAP}
+ * apart, so an insert between two rows writes only the new row. Methods taking an index translate it to a rank here,
+ * with the ordered list of all ranks, read from the position index and kept in the query cache until the table changes.
+ * No method counts or skips rows. Set-based UPDATE statements, which evict the whole second-level cache region
+ * of the entity, are left to renumbering many rows; they detach only the loaded entities whose rank they changed.
+ */
+public interface PositionRepository {
+
+    long GAP = 1L << 16;
+
+    /**
+     * Distance between the neighbours of an allocated rank below which the table should be rebalanced,
+     * leaving room for several more inserts at the same place until it is.
+     */
+    long CROWDED_GAP = GAP >> 8;
+
+    /**
+     * Rank of the row at {@code index}, empty when {@code index} is past the end.
+     */
+    Optional<Long> findRankAt(Class<?> entityType, long index);
+
+    /**
+     * ID of the row at {@code index}, empty when {@code index} is past the end. Reads the row by its rank.
+     */
+    Optional<Long> findIdAt(Class<?> entityType, long index);
+
+    /**
+     * Maps each existing rank to the index of its row by a binary search in the list of all ranks.
+     */
+    Map<Long, Long> findIndexesOf(Class<?> entityType, Collection<Long> ranks);
+
+    /**
+     * Finds a free rank right before the row currently at {@code index}. {@code null} or an index past the end
+     * means the end of the list. The neighbour rows are locked first, so concurrent inserts into the same gap
+     * are serialized while inserts elsewhere are not. When the neighbours are less than {@link #CROWDED_GAP} apart,
+     * the allocation is marked as crowded and the caller should have the table rebalanced, see {@link #rebalance}.
+     * Only when that hasn't happened in time and the neighbours are adjacent, rows from {@code index} onwards are moved
+     * up by {@link #GAP} with two set-based UPDATE statements.
+     */
+    Allocation allocateRank(Class<?> entityType, Long index);
+
+    /**
+     * Finds the rank to append rows from, {@link #GAP} apart. The last row is locked first, so concurrent appends
+     * are serialized until the transaction ends.
+     */
+    long allocateAppend(Class<?> entityType);
+
+    /**
+     * Exchanges the ranks of the rows at the two indexes. The rows are locked and written through their entities,
+     * so only they are dropped from the second-level cache.
+     *
+     * @return IDs of the swapped rows
+     */
+    List<Long> swap(Class<?> entityType, long fromIndex, long toIndex);
+
+    /**
+     * Moves the row at {@code fromIndex} to {@code toIndex} in a table whose ranks are dense (equal to indexes),
+     * renumbering the rows in between by one. Issues three set-based UPDATE statements.
+     *
+     * @return ID of the moved row
+     */
+    Long moveDense(Class<?> entityType, long fromIndex, long toIndex);
+
+    /**
+     * Spaces the ranks of all rows {@link #GAP} apart, keeping their order. Locks every row first, so no rank
+     * is allocated meanwhile.
+     *
+     * @return number of rows
+     */
+    int rebalance(Class<?> entityType);
+
+    /**
+     * Sets ranks of the given rows to their index in {@code ids} times {@code gap}, which also restores the full gap
+     * everywhere. Runs one CASE-based UPDATE per chunk of IDs and one final UPDATE.
+     *
+     * @return number of listed rows that exist
+     */
+    int reorder(Class<?> entityType, List<Long> ids, long gap);
+
+    /**
+     * @param appended whether the rank sorts after every existing row, so no index of another row changed
+     * @param crowded whether the neighbours were closer than {@link #CROWDED_GAP}
+     */
+    record Allocation(long rank, boolean appended, boolean crowded) {
+
+        public Allocation(long rank, boolean appended) {
+            this(rank, appended, false);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package by.babanin.todo.controller.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+
+public class PositionRepositoryImpl implements PositionRepository {
+
+    private static final String POSITION = "position";
+    private static final int REORDER_CHUNK_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Long> findRankAt(Class<?> entityType, long index) {
+        List<Long> ranks = findRanks(entityType, true);
+        if(index < 0 || index >= ranks.size()) {
+            return Optional.empty();
+        }
+        return Optional.of(ranks.get((int) index));
+    }
+
+    @Override
+    public Optional<Long> findIdAt(Class<?> entityType, long index) {
+        return findRankAt(entityType, index)
+                .flatMap(rank -> findIdByRank(entityType, rank));
+    }
+
+    private Optional<Long> findIdByRank(Class<?> entityType, long rank) {
+        return entityManager.createQuery("select e.id from " + getEntityName(entityType) + " e where e.position = :rank", Long.class)
+                .setParameter("rank", rank)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public Map<Long, Long> findIndexesOf(Class<?> entityType, Collection<Long> ranks) {
+        if(ranks.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> allRanks = findRanks(entityType, true);
+        Map<Long, Long> indexes = findIndexesOf(allRanks, ranks);
+        if(indexes.size() != ranks.size()) {
+            // A rank the cached list misses was committed just before the cache learnt about it, or doesn't exist
+            indexes = findIndexesOf(findRanks(entityType, false), ranks);
+        }
+        return indexes;
+    }
+
+    private static Map<Long, Long> findIndexesOf(List<Long> allRanks, Collection<Long> ranks) {
+        Map<Long, Long> indexes = new HashMap<>();
+        for(Long rank : ranks) {
+            int index = Collections.binarySearch(allRanks, rank);
+            if(index >= 0) {
+                indexes.put(rank, (long) index);
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * All ranks in order, read from the position index alone. The cacheable result is dropped from the query cache
+     * whenever the table changes, and isn't used by a transaction that changed it itself.
+     */
+    private List<Long> findRanks(Class<?> entityType, boolean cacheable) {
+        return entityManager.createQuery("select e.position from " + getEntityName(entityType) + " e order by e.position", Long.class)
+                .setHint(HibernateHints.HINT_CACHEABLE, cacheable)
+                .getResultList();
+    }
+
+    @Override
+    public Allocation allocateRank(Class<?> entityType, Long index) {
+        Long next = null;
+        if(index != null) {
+            next = findRankAt(entityType, index)
+                    .map(rank -> lockFirstFrom(entityType, rank))
+                    .orElse(null);
+        }
+        if(next == null) {
+            return new Allocation(allocateAppend(entityType), true);
+        }
+        Long previous = lockLastBefore(entityType, next);
+        long lower = previous == null ? -1 : previous;
+        if(next - lower > 1) {
+            return new Allocation(lower + (next - lower) / 2, false, next - lower < CROWDED_GAP);
+        }
+        String entityName = getEntityName(entityType);
+        // Moving through negative values keeps a unique position index valid whatever order rows are updated in
+        entityManager.createQuery("update " + entityName + " e set e.position = -(e.position + :gap) where e.position >= :position")
+                .setParameter("gap", GAP)
+                .setParameter("position", next)
+                .executeUpdate();
+        entityManager.createQuery("update " + entityName + " e set e.position = -e.position where e.position < 0")
+                .executeUpdate();
+        long shiftedFrom = next;
+        detach(entityType, rank -> rank >= shiftedFrom);
+        return new Allocation(next + GAP / 2, false);
+    }
+
+    @Override
+    public long allocateAppend(Class<?> entityType) {
+        // While waiting for the lock, a concurrent append may commit a new last row the waiting query can't see,
+        // so look again until the locked row is still the last one
+        Long locked;
+        Long last = lockLastBefore(entityType, null);
+        do {
+            locked = last;
+            last = lockLastBefore(entityType, null);
+        }
+        while(!Objects.equals(last, locked));
+        return last == null ? 0 : last + GAP;
+    }
+
+    /**
+     * Locks the row with the smallest rank at or after {@code rank}, which may have moved since it was looked up.
+     */
+    private Long lockFirstFrom(Class<?> entityType, long rank) {
+        TypedQuery<?> query = entityManager.createQuery("select e from " + getEntityName(entityType) + " e"
+                        + " where e.position >= :rank order by e.position", entityType)
+                .setParameter("rank", rank);
+        return lockFirst(query);
+    }
+
+    /**
+     * Locks the row with the largest rank before {@code rank}, or the last row when {@code rank} is {@code null}.
+     */
+    private Long lockLastBefore(Class<?> entityType, Long rank) {
+        TypedQuery<?> query = entityManager.createQuery("select e from " + getEntityName(entityType) + " e"
+                + (rank == null ? "" : " where e.position < :rank") + " order by e.position desc", entityType);
+        if(rank != null) {
+            query.setParameter("rank", rank);
+        }
+        return lockFirst(query);
+    }
+
+    private Long lockFirst(TypedQuery<?> query) {
+        return query.setMaxResults(1)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultStream()
+                .findFirst()
+                .map(this::getRank)
+                .orElse(null);
+    }
+
+    private Long getRank(Object entity) {
+        return ((Number) PropertyAccessorFactory.forBeanPropertyAccess(entity).getPropertyValue(POSITION)).longValue();
+    }
+
+    private void setRank(Object entity, long rank) {
+        PropertyAccessorFactory.forBeanPropertyAccess(entity).setPropertyValue(POSITION, rank);
+    }
+
+    private Long getId(Object entity) {
+        return (Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+    }
+
+    @Override
+    public List<Long> swap(Class<?> entityType, long fromIndex, long toIndex) {
+        List<Long> ranks = findRanks(entityType, true);
+        if(Math.min(fromIndex, toIndex) < 0 || Math.max(fromIndex, toIndex) >= ranks.size()) {
+            return List.of();
+        }
+        long fromRank = ranks.get((int) fromIndex);
+        long toRank = ranks.get((int) toIndex);
+        // The rows may have moved since the ranks were cached, then fewer rows are found
+        List<?> rows = entityManager.createQuery("select e from " + getEntityName(entityType) + " e"
+                        + " where e.position in :ranks order by e.position", entityType)
+                .setParameter("ranks", Set.of(fromRank, toRank))
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if(rows.size() == 1 && fromIndex == toIndex) {
+            return List.of(getId(rows.get(0)));
+        }
+        if(rows.size() != 2) {
+            return List.of();
+        }
+        Object first = rows.get(0);
+        Object second = rows.get(1);
+        long firstRank = getRank(first);
+        long secondRank = getRank(second);
+        // Written through the entities, which drops just these two from the second-level cache where a bulk UPDATE
+        // drops the whole region. Each flush frees the rank the next one takes, see allocateRank for the negation.
+        setRank(first, -firstRank - 1);
+        entityManager.flush();
+        setRank(second, firstRank);
+        entityManager.flush();
+        setRank(first, secondRank);
+        Long firstId = getId(first);
+        Long secondId = getId(second);
+        return fromRank < toRank ? List.of(firstId, secondId) : List.of(secondId, firstId);
+    }
+
+    @Override
+    public Long moveDense(Class<?> entityType, long fromIndex, long toIndex) {
+        List<Long> ranks = findRanks(entityType, true);
+        if(fromIndex < 0 || fromIndex >= ranks.size()) {
+            return null;
+        }
+        Optional<Long> id = findIdByRank(entityType, ranks.get((int) fromIndex));
+        if(id.isEmpty() || fromIndex == toIndex) {
+            return id.orElse(null);
+        }
+        String entityName = getEntityName(entityType);
+        long target = Math.min(toIndex, ranks.size() - 1);
+        // Stored negated first, see allocateRank
+        entityManager.createQuery("update " + entityName + " e set e.position = :position where e.id = :id")
+                .setParameter("position", -target - 1)
+                .setParameter("id", id.get())
+                .executeUpdate();
+        String shift = target < fromIndex
+                ? " e set e.position = -e.position - 2 where e.position >= :lower and e.position < :upper"
+                : " e set e.position = -e.position where e.position > :lower and e.position <= :upper";
+        long lower = Math.min(fromIndex, target);
+        long upper = Math.max(fromIndex, target);
+        entityManager.createQuery("update " + entityName + shift)
+                .setParameter("lower", lower)
+                .setParameter("upper", upper)
+                .executeUpdate();
+        entityManager.createQuery("update " + entityName + " e set e.position = -e.position - 1 where e.position < 0")
+                .executeUpdate();
+        detach(entityType, rank -> rank >= lower && rank <= upper);
+        return id.get();
+    }
+
+    @Override
+    public int rebalance(Class<?> entityType) {
+        String entityName = getEntityName(entityType);
+        // Allocations lock the neighbours of the rank they take, so they wait until this transaction ends
+        entityManager.createQuery("select e from " + entityName + " e", entityType)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        // Read again, as rows committed by the transactions the lock waited for are only seen by a new statement
+        List<Long> ids = entityManager.createQuery("select e.id from " + entityName + " e order by e.position", Long.class)
+                .getResultList();
+        return reorder(entityType, ids, GAP);
+    }
+
+    @Override
+    public int reorder(Class<?> entityType, List<Long> ids, long gap) {
+        String entityName = getEntityName(entityType);
+        int updated = 0;
+        for(int from = 0; from < ids.size(); from += REORDER_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + REORDER_CHUNK_SIZE, ids.size()));
+            StringBuilder cases = new StringBuilder();
+            for(int i = 0; i < chunk.size(); i++) {
+                cases.append(" when :id").append(i).append(" then :position").append(i);
+            }
+            Query query = entityManager.createQuery("update " + entityName + " e set e.position = case e.id" + cases + " end"
+                    + " where e.id in :ids");
+            for(int i = 0; i < chunk.size(); i++) {
+                query.setParameter("id" + i, chunk.get(i));
+                // Stored negated first, see allocateRank
+                query.setParameter("position" + i, -(from + i) * gap - 1);
+            }
+            query.setParameter("ids", chunk);
+            updated += query.executeUpdate();
+        }
+        entityManager.createQuery("update " + entityName + " e set e.position = -e.position - 1 where e.position < 0")
+                .executeUpdate();
+        detach(entityType, rank -> true);
+        return updated;
+    }
+
+    /**
+     * Detaches the loaded entities of the type whose rank, as loaded, matches. Set-based UPDATE statements bypass
+     * the persistence context, so these would otherwise keep a stale rank, and flush it back if changed.
+     */
+    private void detach(Class<?> entityType, LongPredicate stale) {
+        List<Object> entities = new ArrayList<>();
+        for(Object entity : entityManager.unwrap(SessionImplementor.class).getPersistenceContextInternal().getEntitiesByKey().values()) {
+            if(entityType.isInstance(entity) && stale.test(getRank(entity))) {
+                entities.add(entity);
+            }
+        }
+        entities.forEach(entityManager::detach);
+    }
+
+    private String getEntityName(Class<?> entityType) {
+        return entityManager.getMetamodel().entity(entityType).getName();
+    }
+}
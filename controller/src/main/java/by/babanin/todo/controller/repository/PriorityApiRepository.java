@@ -0,0 +1,45 @@
+package by.babanin.todo.controller.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+
+import by.babanin.todo.model.Priority;
+import jakarta.persistence.QueryHint;
+
+/**
+ * Queries the API needs on top of the application {@code PriorityRepository}.
+ */
+public interface PriorityApiRepository extends Repository<Priority, Long>, PositionRepository {
+
+    /**
+     * Seeks on the position index. List result type means no {@code COUNT(*)} query is issued.
+     */
+    List<Priority> findByPositionGreaterThanOrderByPosition(long position, Pageable pageable);
+
+    /**
+     * All rows in position order, fetched from the driver in chunks. Must be consumed inside a transaction.
+     */
+    @Query("select p from Priority p order by p.position")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Priority> streamAllByOrderByPosition();
+
+    /**
+     * Reference to bind as a foreign key without selecting the row.
+     */
+    Priority getReferenceById(Long id);
+
+    Optional<Priority> findById(Long id);
+
+    long count();
+
+    <S extends Priority> S save(S priority);
+
+    <S extends Priority> List<S> saveAll(Iterable<S> priorities);
+}
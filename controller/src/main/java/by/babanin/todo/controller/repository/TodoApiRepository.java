@@ -0,0 +1,84 @@
+package by.babanin.todo.controller.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import by.babanin.todo.model.Todo;
+import jakarta.persistence.QueryHint;
+
+/**
+ * Queries the API needs on top of the application {@code TodoRepository}.
+ */
+public interface TodoApiRepository extends Repository<Todo, Long>, PositionRepository {
+
+    String SELECT_ROWS = "select new by.babanin.todo.controller.repository.TodoRow("
+            + "t.id, t.title, t.description, t.status, t.creationDate, t.plannedDate, t.completionDate, t.position,"
+            + " p.id, p.name, p.position)"
+            + " from Todo t left join t.priority p";
+
+    @Query(value = SELECT_ROWS, countQuery = "select count(t) from Todo t")
+    Page<TodoRow> findRows(Pageable pageable);
+
+    /**
+     * Result is kept in the query cache until either table changes.
+     */
+    @Query(SELECT_ROWS + " order by t.position")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<TodoRow> findAllRows();
+
+    @Query(SELECT_ROWS + " where t.id in :ids order by t.position")
+    List<TodoRow> findRowsById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Seeks on the position index. List result type means no {@code COUNT(*)} query is issued.
+     */
+    @Query(SELECT_ROWS + " where t.position > :position order by t.position")
+    List<TodoRow> findRowsByPositionGreaterThan(@Param("position") long position, Pageable pageable);
+
+    /**
+     * All rows in position order, fetched from the driver in chunks. Must be consumed inside a transaction.
+     */
+    @Query("select t from Todo t left join fetch t.priority order by t.position")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Todo> streamAllByOrderByPosition();
+
+    long count();
+
+    /**
+     * Looks in the second-level cache before the database; the priority is left as a lazy reference.
+     */
+    Optional<Todo> findById(Long id);
+
+    <S extends Todo> S save(S todo);
+
+    <S extends Todo> List<S> saveAll(Iterable<S> todos);
+
+    List<Todo> findAllById(Iterable<Long> ids);
+
+    void deleteAll(Iterable<? extends Todo> todos);
+
+    @Query("select t from Todo t left join fetch t.priority where t.id in :ids")
+    List<Todo> findAllWithPriorityById(@Param("ids") Collection<Long> ids);
+
+    @Query("select t from Todo t left join fetch t.priority order by t.position")
+    List<Todo> findAllWithPriorityByOrderByPosition();
+
+    @Query("select t from Todo t left join fetch t.priority where t.position >= :position order by t.position")
+    List<Todo> findAllWithPriorityByPositionGreaterThanEqual(@Param("position") long position);
+
+    @Query("select t.id from Todo t where t.priority.id = :priorityId")
+    List<Long> findIdsByPriorityId(@Param("priorityId") Long priorityId);
+
+    @Query("select t from Todo t left join fetch t.priority where t.id = :id")
+    Optional<Todo> findWithPriorityById(@Param("id") Long id);
+}
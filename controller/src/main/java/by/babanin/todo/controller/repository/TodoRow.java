@@ -0,0 +1,24 @@
+package by.babanin.todo.controller.repository;
+
+import java.time.LocalDate;
+
+import by.babanin.todo.model.Status;
+
+/**
+ * Read-only projection of a todo and its priority with exactly the columns of {@code TodoInfo}.
+ * Selected by a JPQL constructor expression, so rows are never managed by the persistence context.
+ */
+public record TodoRow(
+        Long id,
+        String title,
+        String description,
+        Status status,
+        LocalDate creationDate,
+        LocalDate plannedDate,
+        LocalDate completionDate,
+        Long position,
+        Long priorityId,
+        String priorityName,
+        Long priorityPosition) {
+
+}
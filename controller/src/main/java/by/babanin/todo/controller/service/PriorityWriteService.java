@@ -0,0 +1,66 @@
+package by.babanin.todo.controller.service;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import by.babanin.todo.controller.dto.PriorityPatch;
+import by.babanin.todo.controller.repository.PriorityApiRepository;
+import by.babanin.todo.model.Priority;
+import jakarta.validation.ValidationException;
+
+/**
+ * Single-row priority writes. The priority table is tiny,
+ * so its positions stay dense and equal to indexes, which the application {@code PriorityService} relies on.
+ */
+@Service
+public class PriorityWriteService {
+
+    private final PriorityApiRepository priorityApiRepository;
+
+    public PriorityWriteService(PriorityApiRepository priorityApiRepository) {
+        this.priorityApiRepository = priorityApiRepository;
+    }
+
+    /**
+     * Moves the priority at {@code from} to {@code to}, renumbering the priorities in between.
+     */
+    @Transactional
+    public Priority move(long from, long to) {
+        Long id = priorityApiRepository.moveDense(Priority.class, from, to);
+        if(id == null) {
+            throw new ValidationException("Priority with position " + from + " doesn't exist.");
+        }
+        return priorityApiRepository.findById(id)
+                .orElseThrow();
+    }
+
+    /**
+     * Applies a complete new order. {@code ids} must list every priority exactly once.
+     */
+    @Transactional
+    public void reorder(List<Long> ids) {
+        if(new HashSet<>(ids).size() != ids.size()) {
+            throw new ValidationException("Order contains duplicate IDs.");
+        }
+        long count = priorityApiRepository.count();
+        if(count != ids.size() || priorityApiRepository.reorder(Priority.class, ids, 1) != count) {
+            throw new ValidationException("Order must contain IDs of all " + count + " priorities.");
+        }
+    }
+
+    /**
+     * Written through the entity, which drops just this priority from the second-level cache.
+     */
+    @Transactional
+    public Priority patch(Long id, PriorityPatch priorityPatch) {
+        Priority priority = priorityApiRepository.findById(id)
+                .orElseThrow(() -> new ValidationException("Priority with ID " + id + " doesn't exist."));
+        if(priorityPatch.isPresent(PriorityPatch.Fields.name)) {
+            priority.setName(priorityPatch.getName());
+        }
+        return priority;
+    }
+}
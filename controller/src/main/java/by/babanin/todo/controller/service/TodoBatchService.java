@@ -0,0 +1,148 @@
+package by.babanin.todo.controller.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import by.babanin.todo.application.service.TodoService;
+import by.babanin.todo.controller.cache.PriorityCache;
+import by.babanin.todo.controller.dto.TodoToCreate;
+import by.babanin.todo.controller.dto.TodoToUpdate;
+import by.babanin.todo.controller.repository.PositionRepository;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.model.Priority;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+import jakarta.validation.ValidationException;
+
+/**
+ * Bulk operations over todos that would otherwise cost one request, transaction and lookup per item.
+ */
+@Service
+public class TodoBatchService {
+
+    private final PriorityCache priorityCache;
+    private final TodoService todoService;
+    private final TodoApiRepository todoApiRepository;
+
+    public TodoBatchService(PriorityCache priorityCache, TodoService todoService, TodoApiRepository todoApiRepository) {
+        this.priorityCache = priorityCache;
+        this.todoService = todoService;
+        this.todoApiRepository = todoApiRepository;
+    }
+
+    /**
+     * Appends the todos to the end of the list in the given order, {@link PositionRepository#GAP} apart,
+     * resolving the priorities missing from {@link PriorityCache} with a single query. Concurrent appends wait for the lock on the last row,
+     * see {@link PositionRepository#allocateAppend}.
+     */
+    @Transactional
+    public List<Todo> create(List<TodoToCreate> todosToCreate) {
+        Set<Long> priorityIds = new HashSet<>();
+        for(TodoToCreate todoToCreate : todosToCreate) {
+            // Checked before the last row is locked, so an invalid request doesn't hold up concurrent appends
+            if(todoToCreate.getPosition() != null) {
+                throw new ValidationException("Batch items are appended to the end, position must not be set.");
+            }
+            if(todoToCreate.getPriorityId() != null) {
+                priorityIds.add(todoToCreate.getPriorityId());
+            }
+        }
+        Map<Long, Priority> priorities = getPrioritiesById(priorityIds);
+        long position = todoApiRepository.allocateAppend(Todo.class);
+        LocalDate creationDate = LocalDate.now();
+        List<Todo> todos = new ArrayList<>(todosToCreate.size());
+        for(TodoToCreate todoToCreate : todosToCreate) {
+            Long priorityId = todoToCreate.getPriorityId();
+            todos.add(Todo.builder()
+                    .title(todoToCreate.getTitle())
+                    .description(todoToCreate.getDescription())
+                    .priority(priorityId != null ? priorities.get(priorityId) : null)
+                    .status(Status.OPEN)
+                    .creationDate(creationDate)
+                    .plannedDate(todoToCreate.getPlannedDate())
+                    .position(position)
+                    .build());
+            position += PositionRepository.GAP;
+        }
+        return todoApiRepository.saveAll(todos);
+    }
+
+    /**
+     * Loads all targets with one query and resolves their new priorities through {@link PriorityCache}, then saves every todo through
+     * {@link TodoService#save} so its rules apply. The loaded todos are already managed, so saving them reads nothing
+     * more and dirty checking flushes the changes as batched UPDATE statements on commit.
+     *
+     * @return updated todos in the iteration order of {@code todosToUpdate}, which is the request order for a parsed body
+     */
+    @Transactional
+    public List<Todo> update(Map<Long, TodoToUpdate> todosToUpdate) {
+        List<Todo> todos = todoApiRepository.findAllWithPriorityById(todosToUpdate.keySet());
+        if(todos.size() != todosToUpdate.size()) {
+            Set<Long> missingIds = new HashSet<>(todosToUpdate.keySet());
+            for(Todo todo : todos) {
+                missingIds.remove(todo.getId());
+            }
+            throw new ValidationException("Todos with IDs " + missingIds + " don't exist.");
+        }
+        Set<Long> priorityIds = new HashSet<>();
+        for(TodoToUpdate todoToUpdate : todosToUpdate.values()) {
+            if(todoToUpdate.getPriorityId() != null) {
+                priorityIds.add(todoToUpdate.getPriorityId());
+            }
+        }
+        Map<Long, Priority> priorities = getPrioritiesById(priorityIds);
+        Map<Long, Todo> todosById = new HashMap<>();
+        for(Todo todo : todos) {
+            todosById.put(todo.getId(), todo);
+        }
+        List<Todo> updatedTodos = new ArrayList<>(todos.size());
+        for(Entry<Long, TodoToUpdate> entry : todosToUpdate.entrySet()) {
+            Todo todo = todosById.get(entry.getKey());
+            TodoToUpdate todoToUpdate = entry.getValue();
+            Long priorityId = todoToUpdate.getPriorityId();
+            Todo updatedTodo = toUpdatedTodo(todo, todoToUpdate, priorityId != null ? priorities.get(priorityId) : null);
+            updatedTodos.add(todoService.save(updatedTodo));
+        }
+        return updatedTodos;
+    }
+
+    /**
+     * Detached copy of {@code todo} with the editable fields taken from {@code todoToUpdate}, as {@link TodoService#save}
+     * expects it.
+     */
+    static Todo toUpdatedTodo(Todo todo, TodoToUpdate todoToUpdate, Priority priority) {
+        return Todo.builder()
+                .id(todo.getId())
+                .title(todoToUpdate.getTitle())
+                .description(todoToUpdate.getDescription())
+                .priority(priority)
+                .status(todoToUpdate.getStatus())
+                .creationDate(todo.getCreationDate())
+                .plannedDate(todo.getPlannedDate())
+                .completionDate(todo.getCompletionDate())
+                .position(todo.getPosition())
+                .build();
+    }
+
+    private Map<Long, Priority> getPrioritiesById(Set<Long> ids) {
+        if(ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Priority> priorities = priorityCache.getAllById(ids);
+        if(priorities.size() != ids.size()) {
+            Set<Long> missingIds = new HashSet<>(ids);
+            missingIds.removeAll(priorities.keySet());
+            throw new ValidationException("Priorities with IDs " + missingIds + " don't exist.");
+        }
+        return priorities;
+    }
+}
@@ -0,0 +1,69 @@
+package by.babanin.todo.controller.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Service;
+
+import by.babanin.todo.controller.dto.TodoInfo;
+import by.babanin.todo.controller.repository.PositionRepository;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.model.Todo;
+
+/**
+ * Todo positions in the API are indexes, while the column holds a gapped rank, see {@link PositionRepository}.
+ * Replaces ranks in mapped responses with indexes.
+ */
+@Service
+public class TodoPositionService {
+
+    private final TodoApiRepository todoApiRepository;
+
+    public TodoPositionService(TodoApiRepository todoApiRepository) {
+        this.todoApiRepository = todoApiRepository;
+    }
+
+    /**
+     * For todos listed in position order starting at index {@code first}, needs no query.
+     */
+    public List<TodoInfo> toIndexes(List<TodoInfo> todos, long first) {
+        long index = first;
+        for(TodoInfo todo : todos) {
+            todo.setPosition(index++);
+        }
+        return todos;
+    }
+
+    /**
+     * For any set of todos, see {@link PositionRepository#findIndexesOf}.
+     */
+    public List<TodoInfo> toIndexes(List<TodoInfo> todos) {
+        if(todos.isEmpty()) {
+            return todos;
+        }
+        Map<Long, Long> indexes = todoApiRepository.findIndexesOf(Todo.class, todos.stream().map(TodoInfo::getPosition).toList());
+        for(TodoInfo todo : todos) {
+            todo.setPosition(indexes.get(todo.getPosition()));
+        }
+        return todos;
+    }
+
+    public TodoInfo toIndex(TodoInfo todo) {
+        toIndexes(List.of(todo));
+        return todo;
+    }
+
+    /**
+     * Wraps the mapper of a stream of all todos in position order.
+     */
+    public <E> Function<E, TodoInfo> inOrder(Function<E, TodoInfo> mapper) {
+        AtomicLong index = new AtomicLong();
+        return entity -> {
+            TodoInfo todo = mapper.apply(entity);
+            todo.setPosition(index.getAndIncrement());
+            return todo;
+        };
+    }
+}
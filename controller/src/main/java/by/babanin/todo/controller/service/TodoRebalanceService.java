@@ -0,0 +1,66 @@
+package by.babanin.todo.controller.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import by.babanin.todo.controller.repository.PositionRepository;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.model.Todo;
+
+/**
+ * Spaces todo ranks apart again off the request path, see {@link PositionRepository#rebalance}, once inserts
+ * have crowded part of the list. Requests made while a rebalance is pending are merged into it.
+ */
+@Service
+public class TodoRebalanceService {
+
+    private final TodoApiRepository todoApiRepository;
+    private final TransactionOperations transaction;
+    private final Executor executor;
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    public TodoRebalanceService(
+            TodoApiRepository todoApiRepository,
+            PlatformTransactionManager transactionManager,
+            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        this.todoApiRepository = todoApiRepository;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transaction = transactionTemplate;
+        this.executor = executor;
+    }
+
+    /**
+     * Rebalances once the current transaction commits, so the crowding rank is committed too.
+     */
+    public void rebalanceAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                if(pending.compareAndSet(false, true)) {
+                    executor.execute(TodoRebalanceService.this::rebalance);
+                }
+            }
+        });
+    }
+
+    void rebalance() {
+        try {
+            transaction.executeWithoutResult(status -> todoApiRepository.rebalance(Todo.class));
+        }
+        finally {
+            pending.set(false);
+        }
+    }
+}
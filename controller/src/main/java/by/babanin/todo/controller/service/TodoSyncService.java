@@ -0,0 +1,63 @@
+package by.babanin.todo.controller.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import by.babanin.todo.controller.datasource.ReplicaRoutingJpaTransactionManager;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.controller.sync.TodoChangeLog;
+import by.babanin.todo.controller.sync.TodoChangeLog.Delta;
+import by.babanin.todo.model.Todo;
+
+/**
+ * Turns the merged change journal into the rows a client has to apply.
+ */
+@Service
+public class TodoSyncService {
+
+    private final TodoChangeLog todoChangeLog;
+    private final TodoApiRepository todoApiRepository;
+
+    public TodoSyncService(TodoChangeLog todoChangeLog, TodoApiRepository todoApiRepository) {
+        this.todoChangeLog = todoChangeLog;
+        this.todoApiRepository = todoApiRepository;
+    }
+
+    /**
+     * The token is taken before the rows are read, so a change racing with this call is delivered again
+     * on the next sync rather than lost. Upserts are idempotent on the client. Rows are read from the primary,
+     * a replica lagging behind the token would lose changes for good.
+     */
+    @Transactional(readOnly = true, label = ReplicaRoutingJpaTransactionManager.PRIMARY_LABEL)
+    public Changes changesSince(String token) {
+        Delta delta = todoChangeLog.since(token);
+        if(delta.reset()) {
+            return new Changes(delta.token(), true, todoApiRepository.findAllWithPriorityByOrderByPosition(), Set.of());
+        }
+        Map<Long, Todo> upserts = new LinkedHashMap<>();
+        if(delta.shiftedFrom() != TodoChangeLog.NO_SHIFT) {
+            Optional<Long> rank = todoApiRepository.findRankAt(Todo.class, delta.shiftedFrom());
+            if(rank.isPresent()) {
+                for(Todo todo : todoApiRepository.findAllWithPriorityByPositionGreaterThanEqual(rank.get())) {
+                    upserts.put(todo.getId(), todo);
+                }
+            }
+        }
+        if(!delta.upserted().isEmpty()) {
+            for(Todo todo : todoApiRepository.findAllWithPriorityById(delta.upserted())) {
+                upserts.putIfAbsent(todo.getId(), todo);
+            }
+        }
+        return new Changes(delta.token(), false, List.copyOf(upserts.values()), delta.deleted());
+    }
+
+    public record Changes(String token, boolean reset, List<Todo> upserts, Set<Long> deletes) {
+
+    }
+}
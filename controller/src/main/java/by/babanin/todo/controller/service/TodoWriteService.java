@@ -0,0 +1,216 @@
+package by.babanin.todo.controller.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import by.babanin.todo.application.service.TodoService;
+import by.babanin.todo.controller.cache.PriorityCache;
+import by.babanin.todo.controller.dto.TodoPatch;
+import by.babanin.todo.controller.dto.TodoToCreate;
+import by.babanin.todo.controller.dto.TodoToUpdate;
+import by.babanin.todo.controller.repository.DynamicUpdateIntegrator;
+import by.babanin.todo.controller.repository.PositionRepository;
+import by.babanin.todo.controller.repository.PositionRepository.Allocation;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.model.Priority;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+import jakarta.validation.ValidationException;
+
+/**
+ * Single-row writes. Updates and patches go through {@link TodoService#save}, so its rules apply. Todo is mapped with
+ * dynamic update, see {@link DynamicUpdateIntegrator}, so every write touches only the columns a request changes.
+ */
+@Service
+public class TodoWriteService {
+
+    private final TodoService todoService;
+    private final TodoApiRepository todoApiRepository;
+    private final PriorityCache priorityCache;
+    private final TodoRebalanceService todoRebalanceService;
+
+    public TodoWriteService(
+            TodoService todoService,
+            TodoApiRepository todoApiRepository,
+            PriorityCache priorityCache,
+            TodoRebalanceService todoRebalanceService) {
+        this.todoService = todoService;
+        this.todoApiRepository = todoApiRepository;
+        this.priorityCache = priorityCache;
+        this.todoRebalanceService = todoRebalanceService;
+    }
+
+    /**
+     * Inserts one row before the todo at the requested index, see {@link #allocateRank}.
+     * The priority is only bound as a foreign key, so a cached detached instance is fine.
+     */
+    @Transactional
+    public Placement create(TodoToCreate todoToCreate, Priority priority) {
+        Allocation allocation = allocateRank(todoToCreate.getPosition());
+        Todo todo = todoApiRepository.save(Todo.builder()
+                .title(todoToCreate.getTitle())
+                .description(todoToCreate.getDescription())
+                .priority(priority)
+                .status(Status.OPEN)
+                .creationDate(LocalDate.now())
+                .plannedDate(todoToCreate.getPlannedDate())
+                .position(allocation.rank())
+                .build());
+        return new Placement(todo, !allocation.appended());
+    }
+
+    /**
+     * Moves the todo at index {@code from} to index {@code to}; an index past the end moves it to the end.
+     * Only the moved row is written unless its new neighbours have adjacent ranks. It is written through the entity,
+     * which drops just this todo from the second-level cache.
+     */
+    @Transactional
+    public Placement move(long from, long to) {
+        Long id = todoApiRepository.findIdAt(Todo.class, from)
+                .orElseThrow(() -> new ValidationException("Todo with position " + from + " doesn't exist."));
+        Allocation allocation = null;
+        if(from != to) {
+            // Moving down, the todos up to the target index move up by one, so the row goes before the one after the target
+            allocation = allocateRank(to < from ? to : to + 1);
+        }
+        // Loaded after the allocation, which detaches the todos it shifts
+        Todo todo = todoApiRepository.findWithPriorityById(id)
+                .orElseThrow();
+        if(allocation != null) {
+            todo.setPosition(allocation.rank());
+        }
+        return new Placement(todo, allocation != null);
+    }
+
+    /**
+     * Exchanges the ranks of the todos at the two indexes.
+     *
+     * @return IDs of the swapped todos
+     */
+    @Transactional
+    public List<Long> swap(long from, long to) {
+        List<Long> ids = todoApiRepository.swap(Todo.class, from, to);
+        if(ids.isEmpty()) {
+            throw new ValidationException("Todo with position " + Math.max(from, to) + " doesn't exist.");
+        }
+        return ids;
+    }
+
+    /**
+     * Deletes the todos without renumbering the remaining ones, which keep their ranks.
+     */
+    @Transactional
+    public Deletion delete(Collection<Long> ids) {
+        List<Todo> todos = todoApiRepository.findAllById(ids);
+        if(todos.size() != ids.size()) {
+            Set<Long> missingIds = new HashSet<>(ids);
+            for(Todo todo : todos) {
+                missingIds.remove(todo.getId());
+            }
+            throw ids.size() == 1
+                    ? new ValidationException("Todo with ID " + missingIds.iterator().next() + " doesn't exist.")
+                    : new ValidationException("Todos with IDs " + missingIds + " don't exist.");
+        }
+        long rank = todos.stream()
+                .mapToLong(Todo::getPosition)
+                .min()
+                .orElseThrow();
+        long index = todoApiRepository.findIndexesOf(Todo.class, List.of(rank)).get(rank);
+        todoApiRepository.deleteAll(todos);
+        return new Deletion(todos.stream().map(Todo::getId).toList(), index);
+    }
+
+    /**
+     * Applies a complete new order. {@code ids} must list every todo exactly once.
+     */
+    @Transactional
+    public void reorder(List<Long> ids) {
+        if(new HashSet<>(ids).size() != ids.size()) {
+            throw new ValidationException("Order contains duplicate IDs.");
+        }
+        long count = todoApiRepository.count();
+        if(count != ids.size() || todoApiRepository.reorder(Todo.class, ids, PositionRepository.GAP) != count) {
+            throw new ValidationException("Order must contain IDs of all " + count + " todos.");
+        }
+    }
+
+    /**
+     * Saves through {@link TodoService#save}, so its rules apply, such as setting the completion date when the todo
+     * gets closed. The todo comes from the second-level cache and the priority from {@link PriorityCache}, so a warm
+     * update runs no SELECT; {@link TodoService#save} copies the fields onto the managed todo, which is flushed as one
+     * UPDATE of the changed columns.
+     */
+    @Transactional
+    public Todo update(Long id, TodoToUpdate todoToUpdate) {
+        Todo todo = getById(id);
+        return todoService.save(TodoBatchService.toUpdatedTodo(todo, todoToUpdate, findPriority(todoToUpdate.getPriorityId())));
+    }
+
+    /**
+     * Applies a merge patch: fields missing from the patch keep their values and the priority is resolved only when
+     * its ID is present. Saves through {@link TodoService#save} like {@link #update}, so a status change sets the
+     * completion date too and only the changed columns are written.
+     */
+    @Transactional
+    public Todo patch(Long id, TodoPatch todoPatch) {
+        Todo todo = getById(id);
+        if(todoPatch.getPresentFields().isEmpty()) {
+            return todo;
+        }
+        Todo patched = Todo.builder()
+                .id(todo.getId())
+                .title(todoPatch.isPresent(TodoPatch.Fields.title) ? todoPatch.getTitle() : todo.getTitle())
+                .description(todoPatch.isPresent(TodoPatch.Fields.description) ? todoPatch.getDescription() : todo.getDescription())
+                .priority(todoPatch.isPresent(TodoPatch.Fields.priorityId) ? findPriority(todoPatch.getPriorityId()) : todo.getPriority())
+                .status(todoPatch.isPresent(TodoPatch.Fields.status) ? todoPatch.getStatus() : todo.getStatus())
+                .build();
+        return todoService.save(patched);
+    }
+
+    /**
+     * See {@link PositionRepository#allocateRank(Class, Long)}. A crowded allocation has the ranks rebalanced
+     * after the commit, instead of other rows being moved here once the gap runs out.
+     */
+    private Allocation allocateRank(Long index) {
+        Allocation allocation = todoApiRepository.allocateRank(Todo.class, index);
+        if(allocation.crowded()) {
+            todoRebalanceService.rebalanceAfterCommit();
+        }
+        return allocation;
+    }
+
+    private Todo getById(Long id) {
+        return todoApiRepository.findById(id)
+                .orElseThrow(() -> new ValidationException("Todo with ID " + id + " doesn't exist."));
+    }
+
+    private Priority findPriority(Long priorityId) {
+        if(priorityId == null) {
+            return null;
+        }
+        return priorityCache.findById(priorityId)
+                .orElseThrow(() -> new ValidationException("Priority with ID " + priorityId + " doesn't exist."));
+    }
+
+    /**
+     * Todo written at a position.
+     *
+     * @param shifted whether indexes of other todos changed
+     */
+    public record Placement(Todo todo, boolean shifted) {
+
+    }
+
+    /**
+     * @param position index the first deleted todo had, todos after it moved up from there
+     */
+    public record Deletion(List<Long> ids, long position) {
+
+    }
+}
@@ -0,0 +1,67 @@
+package by.babanin.todo.controller.stream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Writes entity streams as newline delimited JSON. Rows are mapped, written and detached one by one,
+ * so neither the persistence context nor the response buffer grows with the number of rows.
+ * Streamed rows bypass the second-level cache ({@link CacheMode#IGNORE}): a full scan would fill it with every row
+ * and push out the entries single-row reads and writes use.
+ */
+public class NdjsonWriter {
+
+    private final ObjectWriter objectWriter;
+    private final TransactionOperations readOnlyTransaction;
+    private final EntityManager entityManager;
+
+    public NdjsonWriter(ObjectMapper objectMapper, TransactionOperations readOnlyTransaction, EntityManager entityManager) {
+        this.objectWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = readOnlyTransaction;
+        this.entityManager = entityManager;
+    }
+
+    public <E, T> StreamingResponseBody write(Supplier<Stream<E>> rows, Function<E, T> mapper) {
+        return outputStream -> readOnlyTransaction.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            CacheMode cacheMode = session.getCacheMode();
+            session.setCacheMode(CacheMode.IGNORE);
+            try(Stream<E> stream = rows.get();
+                    JsonGenerator generator = objectWriter.createGenerator(outputStream)) {
+                generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+                generator.setRootValueSeparator(null);
+                Iterator<E> iterator = stream.iterator();
+                while(iterator.hasNext()) {
+                    E row = iterator.next();
+                    objectWriter.writeValue(generator, mapper.apply(row));
+                    generator.writeRaw('\n');
+                    entityManager.detach(row);
+                }
+                generator.flush();
+            }
+            catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            finally {
+                session.setCacheMode(cacheMode);
+            }
+        });
+    }
+}
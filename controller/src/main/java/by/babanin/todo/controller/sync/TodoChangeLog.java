@@ -0,0 +1,170 @@
+package by.babanin.todo.controller.sync;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-process journal of todo mutations made through the API, used to answer delta sync requests.
+ * Each mutation gets the next sequence number. Tokens handed to clients carry an instance prefix,
+ * so a token issued before a restart, or older than the retained history, asks the client for a full reset.
+ * Guarded by a {@link ReentrantLock} rather than {@code synchronized}, which would pin virtual threads to their carrier.
+ */
+public class TodoChangeLog {
+
+    /**
+     * Position returned in {@link Delta#shiftedFrom()} when no positions were shifted.
+     */
+    public static final long NO_SHIFT = Long.MAX_VALUE;
+
+    private final String instance = Long.toString(System.nanoTime(), Character.MAX_RADIX);
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Change> changes = new ArrayDeque<>();
+    private long sequence;
+    private long horizon;
+
+    public TodoChangeLog(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void upserted(Collection<Long> ids) {
+        lock.lock();
+        try {
+            for(Long id : ids) {
+                append(Kind.UPSERT, id);
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public void deleted(Collection<Long> ids) {
+        lock.lock();
+        try {
+            for(Long id : ids) {
+                append(Kind.DELETE, id);
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that positions of all todos at or after {@code position} may have changed.
+     */
+    public void shifted(long position) {
+        lock.lock();
+        try {
+            append(Kind.SHIFT, position);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets the history, every client has to reset on its next sync.
+     */
+    public void cleared() {
+        lock.lock();
+        try {
+            changes.clear();
+            horizon = ++sequence;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public String token() {
+        lock.lock();
+        try {
+            return instance + "." + sequence;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Merges all changes after {@code token}. Later changes of the same todo win over earlier ones.
+     */
+    public Delta since(String token) {
+        lock.lock();
+        try {
+            long from = parse(token);
+            if(from < horizon || from > sequence) {
+                return new Delta(token(), true, Set.of(), Set.of(), NO_SHIFT);
+            }
+            Set<Long> upserted = new LinkedHashSet<>();
+            Set<Long> deleted = new LinkedHashSet<>();
+            long shiftedFrom = NO_SHIFT;
+            Iterator<Change> iterator = changes.descendingIterator();
+            while(iterator.hasNext()) {
+                Change change = iterator.next();
+                if(change.sequence() <= from) {
+                    break;
+                }
+                switch(change.kind()) {
+                    case UPSERT -> {
+                        if(!deleted.contains(change.value())) {
+                            upserted.add(change.value());
+                        }
+                    }
+                    case DELETE -> {
+                        if(!upserted.contains(change.value())) {
+                            deleted.add(change.value());
+                        }
+                    }
+                    case SHIFT -> shiftedFrom = Math.min(shiftedFrom, change.value());
+                }
+            }
+            return new Delta(token(), false, upserted, deleted, shiftedFrom);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(Kind kind, long value) {
+        changes.addLast(new Change(++sequence, kind, value));
+        if(changes.size() > capacity) {
+            horizon = changes.removeFirst().sequence();
+        }
+    }
+
+    private long parse(String token) {
+        if(token != null && token.startsWith(instance + ".")) {
+            try {
+                return Long.parseLong(token.substring(instance.length() + 1));
+            }
+            catch(NumberFormatException e) {
+                // foreign or broken tokens are answered with a reset
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Net effect of the changes after a token. {@code upserted} and {@code deleted} never intersect.
+     * When {@code reset} is set, the client must drop its state and take the full list instead.
+     */
+    public record Delta(String token, boolean reset, Set<Long> upserted, Set<Long> deleted, long shiftedFrom) {
+
+    }
+
+    private enum Kind {
+        UPSERT, DELETE, SHIFT
+    }
+
+    private record Change(long sequence, Kind kind, long value) {
+
+    }
+}
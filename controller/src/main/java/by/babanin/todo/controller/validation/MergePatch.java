@@ -0,0 +1,9 @@
+package by.babanin.todo.controller.validation;
+
+/**
+ * Request body that knows which of its fields were present, so an absent field can be told from an explicit {@code null}.
+ */
+public interface MergePatch {
+
+    boolean isPresent(String field);
+}
@@ -0,0 +1,29 @@
+package by.babanin.todo.controller.validation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+/**
+ * Fields of a {@link MergePatch} that may be left out but not cleared: when present, a text field must not be blank
+ * and any other field must not be {@code null}. Violations are reported on the fields themselves.
+ */
+@Documented
+@Constraint(validatedBy = NotClearableValidator.class)
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface NotClearable {
+
+    String message() default "{jakarta.validation.constraints.NotNull.message}";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+    String[] value();
+}
@@ -0,0 +1,46 @@
+package by.babanin.todo.controller.validation;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class NotClearableValidator implements ConstraintValidator<NotClearable, MergePatch> {
+
+    private static final String NOT_BLANK_MESSAGE = "{jakarta.validation.constraints.NotBlank.message}";
+    private static final String NOT_NULL_MESSAGE = "{jakarta.validation.constraints.NotNull.message}";
+
+    private String[] fields;
+
+    @Override
+    public void initialize(NotClearable constraintAnnotation) {
+        fields = constraintAnnotation.value();
+    }
+
+    @Override
+    public boolean isValid(MergePatch patch, ConstraintValidatorContext context) {
+        if(patch == null) {
+            return true;
+        }
+        BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(patch);
+        boolean valid = true;
+        for(String field : fields) {
+            if(!patch.isPresent(field)) {
+                continue;
+            }
+            Object value = beanWrapper.getPropertyValue(field);
+            boolean text = CharSequence.class.isAssignableFrom(beanWrapper.getPropertyType(field));
+            if(value == null || text && value.toString().isBlank()) {
+                if(valid) {
+                    context.disableDefaultConstraintViolation();
+                    valid = false;
+                }
+                context.buildConstraintViolationWithTemplate(text ? NOT_BLANK_MESSAGE : NOT_NULL_MESSAGE)
+                        .addPropertyNode(field)
+                        .addConstraintViolation();
+            }
+        }
+        return valid;
+    }
+}
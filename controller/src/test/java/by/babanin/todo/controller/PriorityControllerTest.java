@@ -1,14 +1,20 @@
 package by.babanin.todo.controller;
 
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.assertj.core.api.Assertions;
+import org.hamcrest.Matchers;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -18,23 +24,41 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.support.TransactionOperations;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import by.babanin.todo.application.repository.PriorityRepository;
 import by.babanin.todo.application.service.PriorityService;
+import by.babanin.todo.controller.batch.BatchLoader;
+import by.babanin.todo.controller.cache.PriorityCache;
+import by.babanin.todo.controller.cache.PriorityJsonCache;
+import by.babanin.todo.controller.cache.TableVersions;
+import by.babanin.todo.controller.dto.CursorPage;
+import by.babanin.todo.controller.dto.MoveParameter;
 import by.babanin.todo.controller.dto.PriorityInfo;
+import by.babanin.todo.controller.dto.PriorityPatch;
 import by.babanin.todo.controller.dto.SwapParameter;
 import by.babanin.todo.controller.exception.handler.ErrorResult;
 import by.babanin.todo.controller.exception.handler.FieldValidationError;
+import by.babanin.todo.controller.mapper.PriorityMapper;
+import by.babanin.todo.controller.metrics.MappingTimer;
+import by.babanin.todo.controller.repository.PriorityApiRepository;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.controller.service.PriorityWriteService;
+import by.babanin.todo.controller.stream.NdjsonWriter;
+import by.babanin.todo.controller.sync.TodoChangeLog;
 import by.babanin.todo.controller.util.ResponseBodyMatchers;
 import by.babanin.todo.model.Priority;
 import by.babanin.todo.model.Priority.Fields;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 
 @WebMvcTest(PriorityController.class)
 class PriorityControllerTest {
@@ -46,7 +70,13 @@ class PriorityControllerTest {
     private ObjectMapper objectMapper;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private PriorityMapper priorityMapper;
+
+    @Autowired
+    private PriorityJsonCache priorityJsonCache;
+
+    @Autowired
+    private TodoChangeLog todoChangeLog;
 
     @MockBean
     private PriorityService service;
@@ -54,15 +84,67 @@ class PriorityControllerTest {
     @MockBean
     private PriorityRepository repository;
 
+    @MockBean
+    private PriorityApiRepository apiRepository;
+
+    @MockBean
+    private PriorityCache priorityCache;
+
+    @MockBean
+    private PriorityWriteService writeService;
+
+    @MockBean
+    private TodoApiRepository todoApiRepository;
+
     @TestConfiguration
     static class AdditionalConfiguration {
 
         @Bean
-        ModelMapper modelMapper() {
-            return new ModelMapper();
+        NdjsonWriter ndjsonWriter(ObjectMapper objectMapper) {
+            EntityManager entityManager = Mockito.mock(EntityManager.class);
+            Mockito.when(entityManager.unwrap(Session.class))
+                    .thenReturn(Mockito.mock(Session.class));
+            return new NdjsonWriter(objectMapper, TransactionOperations.withoutTransaction(), entityManager);
+        }
+
+        @Bean
+        PriorityMapper priorityMapper() {
+            return new PriorityMapper();
+        }
+
+        @Bean
+        MappingTimer mappingTimer() {
+            return new MappingTimer(new SimpleMeterRegistry(), true);
+        }
+
+        @Bean
+        TableVersions tableVersions() {
+            return new TableVersions();
+        }
+
+        @Bean
+        TodoChangeLog todoChangeLog() {
+            return new TodoChangeLog(16);
+        }
+
+        @Bean
+        PriorityJsonCache priorityJsonCache(ObjectMapper objectMapper) {
+            return new PriorityJsonCache(objectMapper, 1024);
+        }
+
+        @Bean
+        BatchLoader<Long, PriorityInfo> priorityLoader(PriorityService priorityService, PriorityMapper priorityMapper) {
+            return new BatchLoader<>("priority", ids -> priorityService.getAllById(ids).stream()
+                    .map(priorityMapper::toPriorityInfo)
+                    .collect(Collectors.toMap(PriorityInfo::getId, Function.identity())), Duration.ZERO, 100, new SimpleMeterRegistry());
         }
     }
 
+    @BeforeEach
+    void setUp() {
+        priorityJsonCache.invalidateAll();
+    }
+
     @Test
     void create() throws Exception {
         String name = "name";
@@ -71,7 +153,7 @@ class PriorityControllerTest {
                 .name(name)
                 .position(0)
                 .build();
-        PriorityInfo expectedPriorityInfo = modelMapper.map(priority, PriorityInfo.class);
+        PriorityInfo expectedPriorityInfo = priorityMapper.toPriorityInfo(priority);
         Mockito.when(service.create(name))
                 .thenReturn(priority);
         PriorityInfo priorityInfo = new PriorityInfo();
@@ -86,6 +168,8 @@ class PriorityControllerTest {
 
         Mockito.verify(service, Mockito.times(1))
                 .create(name);
+        Mockito.verify(priorityCache, Mockito.times(1))
+                .invalidateAll();
     }
 
     @Test
@@ -97,7 +181,7 @@ class PriorityControllerTest {
                 .name(name)
                 .position(1)
                 .build();
-        PriorityInfo expectedPriorityInfo = modelMapper.map(priority, PriorityInfo.class);
+        PriorityInfo expectedPriorityInfo = priorityMapper.toPriorityInfo(priority);
         Mockito.when(service.create(position, name))
                 .thenReturn(priority);
         PriorityInfo priorityInfo = new PriorityInfo();
@@ -113,6 +197,8 @@ class PriorityControllerTest {
 
         Mockito.verify(service, Mockito.times(1))
                 .create(position, name);
+        Mockito.verify(priorityCache, Mockito.times(1))
+                .invalidateAll();
     }
 
     @Test
@@ -216,7 +302,7 @@ class PriorityControllerTest {
                 .build();
         Mockito.when(service.rename(id, name))
                 .thenReturn(priority);
-        PriorityInfo expectedPriorityInfo = modelMapper.map(priority, PriorityInfo.class);
+        PriorityInfo expectedPriorityInfo = priorityMapper.toPriorityInfo(priority);
         PriorityInfo priorityInfo = new PriorityInfo();
         priorityInfo.setName(name);
 
@@ -229,6 +315,32 @@ class PriorityControllerTest {
 
         Mockito.verify(service, Mockito.times(1))
                 .rename(id, name);
+        Mockito.verify(priorityCache, Mockito.times(1))
+                .invalidateAll();
+    }
+
+    @Test
+    void renameJournalsTodosOfPriority() throws Exception {
+        long id = 1;
+        String name = "name";
+        Mockito.when(service.rename(id, name))
+                .thenReturn(Priority.builder().id(id).name(name).position(0).build());
+        Mockito.when(todoApiRepository.findIdsByPriorityId(id))
+                .thenReturn(List.of(3L, 4L));
+        PriorityInfo priorityInfo = new PriorityInfo();
+        priorityInfo.setName(name);
+        String token = todoChangeLog.token();
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/priorities/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(priorityInfo)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        TodoChangeLog.Delta delta = todoChangeLog.since(token);
+        Assertions.assertThat(delta.reset())
+                .isFalse();
+        Assertions.assertThat(delta.upserted())
+                .containsExactlyInAnyOrder(3L, 4L);
     }
 
     @Test
@@ -240,7 +352,7 @@ class PriorityControllerTest {
                 .name(name)
                 .position(0)
                 .build();
-        PriorityInfo priorityInfo = modelMapper.map(priority, PriorityInfo.class);
+        PriorityInfo priorityInfo = priorityMapper.toPriorityInfo(priority);
         ErrorResult errorResult = new ErrorResult();
         List<FieldValidationError> fieldErrors = errorResult.getFieldErrors();
         fieldErrors.add(new FieldValidationError(Fields.name, "must not be blank"));
@@ -266,7 +378,7 @@ class PriorityControllerTest {
                 .name(name)
                 .position(0)
                 .build();
-        PriorityInfo priorityInfo = modelMapper.map(priority, PriorityInfo.class);
+        PriorityInfo priorityInfo = priorityMapper.toPriorityInfo(priority);
         ErrorResult errorResult = new ErrorResult();
         errorResult.getFieldErrors().add(new FieldValidationError(Fields.id, "must be greater than or equal to 0"));
 
@@ -290,7 +402,7 @@ class PriorityControllerTest {
                 .name(name)
                 .position(0)
                 .build();
-        PriorityInfo priorityInfo = modelMapper.map(priority, PriorityInfo.class);
+        PriorityInfo priorityInfo = priorityMapper.toPriorityInfo(priority);
 
         mockMvc.perform(MockMvcRequestBuilders.put("/priorities/{id}", "id")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -317,7 +429,7 @@ class PriorityControllerTest {
                 .name(name)
                 .position(0)
                 .build();
-        PriorityInfo priorityInfo = modelMapper.map(priority, PriorityInfo.class);
+        PriorityInfo priorityInfo = priorityMapper.toPriorityInfo(priority);
         ErrorResult errorResult = new ErrorResult();
         errorResult.getFieldErrors().add(new FieldValidationError(Fields.name, "size must be between 1 and 16"));
 
@@ -345,6 +457,24 @@ class PriorityControllerTest {
 
         Mockito.verify(service, Mockito.times(1))
                 .swap(swapParameter.getFrom(), swapParameter.getTo());
+        Mockito.verify(priorityCache, Mockito.times(1))
+                .invalidateAll();
+    }
+
+    @Test
+    void swapResetsTodoSync() throws Exception {
+        SwapParameter swapParameter = new SwapParameter();
+        swapParameter.setFrom(1);
+        swapParameter.setTo(2);
+        String token = todoChangeLog.token();
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/priorities/swap")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(swapParameter)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Assertions.assertThat(todoChangeLog.since(token).reset())
+                .isTrue();
     }
 
     @Test
@@ -392,7 +522,7 @@ class PriorityControllerTest {
         Mockito.when(service.getAll())
                 .thenReturn(priorities);
         List<PriorityInfo> priorityInfos = priorities.stream()
-                .map(priority -> modelMapper.map(priority, PriorityInfo.class))
+                .map(priority -> priorityMapper.toPriorityInfo(priority))
                 .toList();
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/priorities/all"))
@@ -419,6 +549,8 @@ class PriorityControllerTest {
 
         Mockito.verify(service, Mockito.times(1))
                 .deleteById(id);
+        Mockito.verify(priorityCache, Mockito.times(1))
+                .invalidateAll();
     }
 
     @Test
@@ -466,6 +598,8 @@ class PriorityControllerTest {
 
         Mockito.verify(service, Mockito.times(1))
                 .deleteAllById(ids);
+        Mockito.verify(priorityCache, Mockito.times(1))
+                .invalidateAll();
     }
 
     @Test
@@ -488,6 +622,8 @@ class PriorityControllerTest {
 
         Mockito.verify(service, Mockito.times(1))
                 .deleteAllById(new HashSet<>(ids));
+        Mockito.verify(priorityCache, Mockito.times(1))
+                .invalidateAll();
     }
 
     @Test
@@ -550,6 +686,8 @@ class PriorityControllerTest {
 
         Mockito.verify(service, Mockito.times(1))
                 .deleteAll();
+        Mockito.verify(priorityCache, Mockito.times(1))
+                .invalidateAll();
     }
 
     @Test
@@ -560,9 +698,9 @@ class PriorityControllerTest {
                 .name("test")
                 .position(0)
                 .build();
-        PriorityInfo expectedPriorityInfo = modelMapper.map(priority, PriorityInfo.class);
-        Mockito.when(service.getById(id))
-                .thenReturn(priority);
+        PriorityInfo expectedPriorityInfo = priorityMapper.toPriorityInfo(priority);
+        Mockito.when(service.getAllById(Set.of(id)))
+                .thenReturn(List.of(priority));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/priorities/{id}", id))
                 .andExpect(MockMvcResultMatchers.status().isOk())
@@ -570,7 +708,82 @@ class PriorityControllerTest {
                         .containsObjectAsJson(expectedPriorityInfo, PriorityInfo.class));
 
         Mockito.verify(service, Mockito.times(1))
-                .getById(id);
+                .getAllById(Set.of(id));
+    }
+
+    @Test
+    void getByIdCached() throws Exception {
+        Long id = 1L;
+        Priority priority = Priority.builder()
+                .id(id)
+                .name("test")
+                .position(0)
+                .build();
+        PriorityInfo expectedPriorityInfo = priorityMapper.toPriorityInfo(priority);
+        Mockito.when(service.getAllById(Set.of(id)))
+                .thenReturn(List.of(priority));
+
+        for(int i = 0; i < 2; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.get("/priorities/{id}", id))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                            .containsObjectAsJson(expectedPriorityInfo, PriorityInfo.class));
+        }
+
+        Mockito.verify(service, Mockito.times(1))
+                .getAllById(Set.of(id));
+    }
+
+    @Test
+    void getByIdReloadedAfterRename() throws Exception {
+        Long id = 1L;
+        Priority priority = Priority.builder()
+                .id(id)
+                .name("old")
+                .position(0)
+                .build();
+        Priority renamedPriority = Priority.builder()
+                .id(id)
+                .name("new")
+                .position(0)
+                .build();
+        Mockito.when(service.getAllById(Set.of(id)))
+                .thenReturn(List.of(priority), List.of(renamedPriority));
+        Mockito.when(service.rename(id, "new"))
+                .thenReturn(renamedPriority);
+        PriorityInfo priorityInfo = new PriorityInfo();
+        priorityInfo.setName("new");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/priorities/{id}", id))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(priorityMapper.toPriorityInfo(priority), PriorityInfo.class));
+        mockMvc.perform(MockMvcRequestBuilders.put("/priorities/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(priorityInfo)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/priorities/{id}", id))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(priorityMapper.toPriorityInfo(renamedPriority), PriorityInfo.class));
+
+        Mockito.verify(service, Mockito.times(2))
+                .getAllById(Set.of(id));
+    }
+
+    @Test
+    void getByIdNotFound() throws Exception {
+        Long id = 1L;
+        Mockito.when(service.getAllById(Set.of(id)))
+                .thenReturn(List.of());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/priorities/{id}", id))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo("Not valid due to validation error: Priority with ID 1 doesn't exist.");
     }
 
     @Test
@@ -584,7 +797,7 @@ class PriorityControllerTest {
         Assertions.assertThat(result.getResponse().getContentAsString())
                 .isEqualTo("Not valid due to validation error: getById.id: must be greater than or equal to 0");
 
-        Mockito.verify(service, Mockito.never()).getById(id);
+        Mockito.verify(service, Mockito.never()).getAllById(Mockito.anySet());
     }
 
     @Test
@@ -609,7 +822,7 @@ class PriorityControllerTest {
                         .build()
         );
         List<PriorityInfo> expectedPriorityInfos = priorities.stream()
-                .map(priority -> modelMapper.map(priority, PriorityInfo.class))
+                .map(priority -> priorityMapper.toPriorityInfo(priority))
                 .toList();
         Mockito.when(service.getAllById(ids))
                 .thenReturn(priorities);
@@ -680,7 +893,7 @@ class PriorityControllerTest {
         );
         PageRequest pageRequest = PageRequest.of(0, 20, Direction.ASC, Fields.position);
         Page<Priority> page = new PageImpl<>(priorities, pageRequest, 2);
-        Page<PriorityInfo> expectedPage = page.map(priority -> modelMapper.map(priority, PriorityInfo.class));
+        Page<PriorityInfo> expectedPage = page.map(priority -> priorityMapper.toPriorityInfo(priority));
         Mockito.when(repository.findAll(pageRequest))
                 .thenReturn(page);
 
@@ -695,4 +908,345 @@ class PriorityControllerTest {
         Mockito.verify(repository, Mockito.times(1))
                 .findAll(pageRequest);
     }
+
+    @Test
+    void pageAfter() throws Exception {
+        List<Priority> priorities = List.of(
+                Priority.builder()
+                        .id(1L)
+                        .name("name1")
+                        .position(3)
+                        .build(),
+                Priority.builder()
+                        .id(2L)
+                        .name("name2")
+                        .position(4)
+                        .build(),
+                Priority.builder()
+                        .id(3L)
+                        .name("name3")
+                        .position(5)
+                        .build()
+        );
+        PageRequest pageRequest = PageRequest.of(0, 3);
+        CursorPage<PriorityInfo> expectedPage = new CursorPage<>(
+                priorities.subList(0, 2).stream()
+                        .map(priority -> priorityMapper.toPriorityInfo(priority))
+                        .toList(),
+                CursorUtils.encode(4));
+        Mockito.when(apiRepository.findByPositionGreaterThanOrderByPosition(2, pageRequest))
+                .thenReturn(priorities);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/priorities")
+                        .param("after", CursorUtils.encode(2))
+                        .param("limit", "2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(objectMapper.writeValueAsString(expectedPage));
+
+        Mockito.verify(apiRepository, Mockito.times(1))
+                .findByPositionGreaterThanOrderByPosition(2, pageRequest);
+        Mockito.verifyNoInteractions(repository);
+    }
+
+    @Test
+    void pageAfterLastPage() throws Exception {
+        List<Priority> priorities = List.of(
+                Priority.builder()
+                        .id(1L)
+                        .name("name1")
+                        .position(0)
+                        .build()
+        );
+        PageRequest pageRequest = PageRequest.of(0, 3);
+        CursorPage<PriorityInfo> expectedPage = new CursorPage<>(
+                List.of(priorityMapper.toPriorityInfo(priorities.get(0))),
+                null);
+        Mockito.when(apiRepository.findByPositionGreaterThanOrderByPosition(CursorUtils.NO_POSITION, pageRequest))
+                .thenReturn(priorities);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/priorities")
+                        .param("limit", "2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(objectMapper.writeValueAsString(expectedPage));
+    }
+
+    @Test
+    void pageAfterWithInvalidCursor() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/priorities")
+                        .param("after", "test")
+                        .param("limit", "2"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo("Not valid due to validation error: Cursor is not valid.");
+    }
+
+    @Test
+    void pageAfterWithZeroLimit() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/priorities")
+                        .param("limit", "0"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo("Not valid due to validation error: pageAfter.limit: must be greater than or equal to 1");
+    }
+
+    @Test
+    void allAsNdjson() throws Exception {
+        List<Priority> priorities = List.of(
+                Priority.builder()
+                        .id(1L)
+                        .name("name1")
+                        .position(0)
+                        .build(),
+                Priority.builder()
+                        .id(2L)
+                        .name("name2")
+                        .position(1)
+                        .build()
+        );
+        Mockito.when(apiRepository.streamAllByOrderByPosition())
+                .thenReturn(priorities.stream());
+        StringBuilder expectedContent = new StringBuilder();
+        for(Priority priority : priorities) {
+            expectedContent.append(objectMapper.writeValueAsString(priorityMapper.toPriorityInfo(priority)))
+                    .append('\n');
+        }
+
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders.get("/priorities/all")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(expectedContent.toString());
+
+        Mockito.verify(service, Mockito.never())
+                .getAll();
+    }
+
+    @Test
+    void patch() throws Exception {
+        Priority priority = Priority.builder()
+                .id(1L)
+                .name("name")
+                .position(0)
+                .build();
+        PriorityPatch priorityPatch = new PriorityPatch();
+        priorityPatch.setName(priority.getName());
+        Mockito.when(writeService.patch(priority.getId(), priorityPatch))
+                .thenReturn(priority);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/priorities/{id}", priority.getId())
+                        .contentType(ApiMediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                        .content("{\"name\":\"name\"}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(priorityMapper.toPriorityInfo(priority), PriorityInfo.class));
+
+        Mockito.verify(writeService, Mockito.times(1))
+                .patch(priority.getId(), priorityPatch);
+        Mockito.verify(priorityCache, Mockito.times(1))
+                .invalidateAll();
+    }
+
+    @Test
+    void patchWithNullName() throws Exception {
+        ErrorResult errorResult = new ErrorResult();
+        errorResult.getFieldErrors().add(new FieldValidationError(Fields.name, "must not be blank"));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/priorities/{id}", 1L)
+                        .contentType(ApiMediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                        .content("{\"name\":null}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(errorResult, ErrorResult.class));
+
+        Mockito.verifyNoInteractions(writeService);
+    }
+
+    @Test
+    void allAsNdjsonHasOwnEtag() throws Exception {
+        Mockito.when(service.getAll())
+                .thenReturn(List.of());
+        Mockito.when(apiRepository.streamAllByOrderByPosition())
+                .then(invocation -> Stream.empty());
+
+        String jsonEtag = mockMvc.perform(MockMvcRequestBuilders.get("/priorities/all"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders.get("/priorities/all")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        String ndjsonEtag = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        Assertions.assertThat(ndjsonEtag)
+                .isNotEqualTo(jsonEtag);
+        mockMvc.perform(MockMvcRequestBuilders.get("/priorities/all")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, ndjsonEtag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void allNotModified() throws Exception {
+        Mockito.when(service.getAll())
+                .thenReturn(List.of());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/priorities/all"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/priorities/all")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        Mockito.verify(service, Mockito.times(1))
+                .getAll();
+    }
+
+    @Test
+    void allCached() throws Exception {
+        Mockito.when(service.getAll())
+                .thenReturn(List.of());
+
+        for(int i = 0; i < 2; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.get("/priorities/all"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.content().json("[]"));
+        }
+
+        Mockito.verify(service, Mockito.times(1))
+                .getAll();
+    }
+
+    @Test
+    void allModifiedAfterRename() throws Exception {
+        Priority priority = Priority.builder()
+                .id(1L)
+                .name("name")
+                .position(0)
+                .build();
+        Mockito.when(service.getAll())
+                .thenReturn(List.of(priority));
+        Mockito.when(service.rename(1L, "name"))
+                .thenReturn(priority);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/priorities/all"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        PriorityInfo priorityInfo = new PriorityInfo();
+        priorityInfo.setName("name");
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/priorities/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(priorityInfo)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/priorities/all")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, Matchers.not(etag)));
+    }
+
+    @Test
+    void move() throws Exception {
+        Priority priority = Priority.builder()
+                .id(1L)
+                .name("name")
+                .position(5)
+                .build();
+        MoveParameter moveParameter = new MoveParameter();
+        moveParameter.setFrom(0);
+        moveParameter.setTo(4);
+        Mockito.when(writeService.move(moveParameter.getFrom(), moveParameter.getTo()))
+                .thenReturn(priority);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/priorities/move")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(moveParameter)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(priorityMapper.toPriorityInfo(priority), PriorityInfo.class));
+
+        Mockito.verify(writeService, Mockito.times(1))
+                .move(moveParameter.getFrom(), moveParameter.getTo());
+        Mockito.verify(priorityCache, Mockito.times(1))
+                .invalidateAll();
+    }
+
+    @Test
+    void moveWithNegativePositions() throws Exception {
+        MoveParameter moveParameter = new MoveParameter();
+        moveParameter.setFrom(-1);
+        moveParameter.setTo(-2);
+        ErrorResult errorResult = new ErrorResult();
+        List<FieldValidationError> fieldErrors = errorResult.getFieldErrors();
+        fieldErrors.add(new FieldValidationError("from", "Position \"from\" can't be negative"));
+        fieldErrors.add(new FieldValidationError("to", "Position \"to\" can't be negative"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/priorities/move")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(moveParameter)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(errorResult, ErrorResult.class));
+
+        Mockito.verify(writeService, Mockito.never())
+                .move(Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    @Test
+    void order() throws Exception {
+        List<Long> ids = List.of(2L, 1L);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/priorities/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ids)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Mockito.verify(writeService, Mockito.times(1))
+                .reorder(ids);
+        Mockito.verify(priorityCache, Mockito.times(1))
+                .invalidateAll();
+    }
+
+    @Test
+    void orderWithoutIds() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/priorities/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verify(writeService, Mockito.never())
+                .reorder(Mockito.any());
+    }
 }
\ No newline at end of file
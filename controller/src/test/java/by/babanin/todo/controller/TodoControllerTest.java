@@ -1,16 +1,24 @@
 package by.babanin.todo.controller;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.assertj.core.api.Assertions;
+import org.hamcrest.Matchers;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
-import org.modelmapper.Converter;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -20,28 +28,52 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.support.TransactionOperations;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import by.babanin.todo.application.repository.TodoRepository;
 import by.babanin.todo.application.service.PriorityService;
 import by.babanin.todo.application.service.TodoService;
+import by.babanin.todo.controller.batch.BatchLoader;
+import by.babanin.todo.controller.cache.PriorityCache;
+import by.babanin.todo.controller.cache.TableVersions;
+import by.babanin.todo.controller.dto.CursorPage;
+import by.babanin.todo.controller.dto.MoveParameter;
 import by.babanin.todo.controller.dto.SwapParameter;
+import by.babanin.todo.controller.dto.TodoChanges;
 import by.babanin.todo.controller.dto.TodoInfo;
+import by.babanin.todo.controller.dto.TodoPatch;
 import by.babanin.todo.controller.dto.TodoToCreate;
 import by.babanin.todo.controller.dto.TodoToUpdate;
 import by.babanin.todo.controller.exception.handler.ErrorResult;
 import by.babanin.todo.controller.exception.handler.FieldValidationError;
+import by.babanin.todo.controller.json.JsonSingleFlight;
+import by.babanin.todo.controller.mapper.PriorityMapper;
+import by.babanin.todo.controller.mapper.TodoMapper;
+import by.babanin.todo.controller.metrics.MappingTimer;
+import by.babanin.todo.controller.repository.PositionRepository;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.controller.repository.TodoRow;
+import by.babanin.todo.controller.service.TodoBatchService;
+import by.babanin.todo.controller.service.TodoPositionService;
+import by.babanin.todo.controller.service.TodoSyncService;
+import by.babanin.todo.controller.service.TodoWriteService;
+import by.babanin.todo.controller.stream.NdjsonWriter;
+import by.babanin.todo.controller.sync.TodoChangeLog;
+import by.babanin.todo.controller.sync.TodoChangeLog.Delta;
 import by.babanin.todo.controller.util.ResponseBodyMatchers;
 import by.babanin.todo.model.Priority;
 import by.babanin.todo.model.Status;
 import by.babanin.todo.model.Todo;
 import by.babanin.todo.model.Todo.Fields;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 
 @WebMvcTest(TodoController.class)
 class TodoControllerTest {
@@ -53,13 +85,28 @@ class TodoControllerTest {
     private ObjectMapper objectMapper;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private TodoMapper todoMapper;
+
+    @Autowired
+    private PriorityCache priorityCache;
+
+    @Autowired
+    private TodoChangeLog todoChangeLog;
 
     @MockBean
     private TodoService todoService;
 
     @MockBean
-    private TodoRepository todoRepository;
+    private TodoApiRepository todoApiRepository;
+
+    @MockBean
+    private TodoBatchService todoBatchService;
+
+    @MockBean
+    private TodoWriteService todoWriteService;
+
+    @MockBean
+    private TodoSyncService todoSyncService;
 
     @MockBean
     private PriorityService priorityService;
@@ -68,26 +115,73 @@ class TodoControllerTest {
     static class AdditionalConfiguration {
 
         @Bean
-        ModelMapper modelMapper(Converter<Long, Priority> priorityIdConverter) {
-            ModelMapper modelMapper = new ModelMapper();
-            modelMapper.createTypeMap(TodoToUpdate.class, Todo.class)
-                    .addMappings(mapping -> mapping.using(priorityIdConverter)
-                            .map(TodoToUpdate::getPriorityId, Todo::setPriority));
-            return modelMapper;
+        NdjsonWriter ndjsonWriter(ObjectMapper objectMapper) {
+            EntityManager entityManager = Mockito.mock(EntityManager.class);
+            Mockito.when(entityManager.unwrap(Session.class))
+                    .thenReturn(Mockito.mock(Session.class));
+            return new NdjsonWriter(objectMapper, TransactionOperations.withoutTransaction(), entityManager);
+        }
+
+        @Bean
+        PriorityMapper priorityMapper() {
+            return new PriorityMapper();
+        }
+
+        @Bean
+        TodoMapper todoMapper(PriorityMapper priorityMapper) {
+            return new TodoMapper(priorityMapper);
+        }
+
+        @Bean
+        MappingTimer mappingTimer() {
+            return new MappingTimer(new SimpleMeterRegistry(), true);
         }
 
         @Bean
-        Converter<Long, Priority> priorityIdConverter(PriorityService service) {
-            return context -> {
-                Long priorityId = context.getSource();
-                if(priorityId != null) {
-                    return service.getById(priorityId);
-                }
-                return null;
-            };
+        PriorityCache priorityCache(PriorityService service) {
+            return new PriorityCache(service, 16, Duration.ofMinutes(1));
+        }
+
+        @Bean
+        TableVersions tableVersions() {
+            return new TableVersions();
+        }
+
+        @Bean
+        JsonSingleFlight jsonSingleFlight(ObjectMapper objectMapper) {
+            return new JsonSingleFlight(objectMapper);
+        }
+
+        @Bean
+        TodoChangeLog todoChangeLog() {
+            return new TodoChangeLog(16);
+        }
+
+        @Bean
+        TodoPositionService todoPositionService(TodoApiRepository todoApiRepository) {
+            return new TodoPositionService(todoApiRepository);
+        }
+
+        @Bean
+        BatchLoader<Long, TodoRow> todoLoader(TodoApiRepository todoApiRepository) {
+            return new BatchLoader<>("todo", ids -> todoApiRepository.findRowsById(ids).stream()
+                    .collect(Collectors.toMap(TodoRow::id, Function.identity())), Duration.ZERO, 100, new SimpleMeterRegistry());
         }
     }
 
+    @BeforeEach
+    void setUp() {
+        priorityCache.invalidateAll();
+        // Ranks in the fixtures are already dense
+        Mockito.when(todoApiRepository.findIndexesOf(Mockito.eq(Todo.class), Mockito.anyCollection()))
+                .then(invocation -> {
+                    Collection<Long> ranks = invocation.getArgument(1);
+                    return ranks.stream()
+                            .distinct()
+                            .collect(Collectors.toMap(Function.identity(), Function.identity()));
+                });
+    }
+
     @Test
     void create() throws Exception {
         Priority priority = Priority.builder()
@@ -102,13 +196,7 @@ class TodoControllerTest {
                 .creationDate(LocalDate.now())
                 .plannedDate(LocalDate.now().plusDays(1))
                 .build();
-        TodoInfo expectedTodoInfo = modelMapper.map(todo, TodoInfo.class);
-        Mockito.when(todoService.create(
-                        todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate()))
-                .thenReturn(todo);
+        TodoInfo expectedTodoInfo = todoMapper.toTodoInfo(todo);
         Mockito.when(priorityService.getById(priority.getId()))
                 .thenReturn(priority);
         TodoToCreate todoToCreate = new TodoToCreate();
@@ -116,6 +204,8 @@ class TodoControllerTest {
         todoToCreate.setDescription(todo.getDescription());
         todoToCreate.setPriorityId(todo.getPriority().getId());
         todoToCreate.setPlannedDate(todo.getPlannedDate());
+        Mockito.when(todoWriteService.create(todoToCreate, priority))
+                .thenReturn(new TodoWriteService.Placement(todo, false));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/todo")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -124,11 +214,44 @@ class TodoControllerTest {
                 .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
                         .containsObjectAsJson(expectedTodoInfo, TodoInfo.class));
 
-        Mockito.verify(todoService, Mockito.times(1))
-                .create(todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate());
+        Mockito.verify(todoWriteService, Mockito.times(1))
+                .create(todoToCreate, priority);
+        Mockito.verify(priorityService, Mockito.times(1))
+                .getById(priority.getId());
+    }
+
+    @Test
+    void createTwiceWithSamePriority() throws Exception {
+        Priority priority = Priority.builder()
+                .id(0L)
+                .name("name")
+                .build();
+        Todo todo = Todo.builder()
+                .id(0L)
+                .title("title")
+                .status(Status.OPEN)
+                .priority(priority)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .build();
+        Mockito.when(priorityService.getById(priority.getId()))
+                .thenReturn(priority);
+        TodoToCreate todoToCreate = new TodoToCreate();
+        todoToCreate.setTitle(todo.getTitle());
+        todoToCreate.setPriorityId(priority.getId());
+        todoToCreate.setPlannedDate(todo.getPlannedDate());
+        Mockito.when(todoWriteService.create(todoToCreate, priority))
+                .thenReturn(new TodoWriteService.Placement(todo, false));
+
+        for(int i = 0; i < 2; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.post("/todo")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(todoToCreate)))
+                    .andExpect(MockMvcResultMatchers.status().isOk());
+        }
+
+        Mockito.verify(todoWriteService, Mockito.times(2))
+                .create(todoToCreate, priority);
         Mockito.verify(priorityService, Mockito.times(1))
                 .getById(priority.getId());
     }
@@ -143,19 +266,14 @@ class TodoControllerTest {
                 .plannedDate(LocalDate.now().plusDays(1))
                 .position(1)
                 .build();
-        TodoInfo expectedTodoInfo = modelMapper.map(todo, TodoInfo.class);
-        Mockito.when(todoService.create(
-                        todo.getPosition(),
-                        todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate()))
-                .thenReturn(todo);
+        TodoInfo expectedTodoInfo = todoMapper.toTodoInfo(todo);
         TodoToCreate todoToCreate = new TodoToCreate();
         todoToCreate.setTitle(todo.getTitle());
         todoToCreate.setDescription(todo.getDescription());
         todoToCreate.setPlannedDate(todo.getPlannedDate());
         todoToCreate.setPosition(todo.getPosition());
+        Mockito.when(todoWriteService.create(todoToCreate, null))
+                .thenReturn(new TodoWriteService.Placement(todo, false));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/todo")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -164,12 +282,8 @@ class TodoControllerTest {
                 .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
                         .containsObjectAsJson(expectedTodoInfo, TodoInfo.class));
 
-        Mockito.verify(todoService, Mockito.times(1))
-                .create(todo.getPosition(),
-                        todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate());
+        Mockito.verify(todoWriteService, Mockito.times(1))
+                .create(todoToCreate, null);
     }
 
     @Test
@@ -181,12 +295,6 @@ class TodoControllerTest {
                 .creationDate(LocalDate.now())
                 .plannedDate(LocalDate.now().plusDays(1))
                 .build();
-        Mockito.when(todoService.create(
-                        todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate()))
-                .thenReturn(todo);
         TodoToCreate todoToCreate = new TodoToCreate();
         todoToCreate.setTitle(todo.getTitle());
         todoToCreate.setDescription(todo.getDescription());
@@ -203,11 +311,8 @@ class TodoControllerTest {
                 .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
                         .containsObjectAsJson(errorResult, ErrorResult.class));
 
-        Mockito.verify(todoService, Mockito.never())
-                .create(todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate());
+        Mockito.verify(todoWriteService, Mockito.never())
+                .create(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -219,12 +324,6 @@ class TodoControllerTest {
                 .creationDate(LocalDate.now())
                 .plannedDate(LocalDate.now().plusDays(1))
                 .build();
-        Mockito.when(todoService.create(
-                        todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate()))
-                .thenReturn(todo);
         TodoToCreate todoToCreate = new TodoToCreate();
         todoToCreate.setTitle(todo.getTitle());
         todoToCreate.setDescription(todo.getDescription());
@@ -240,11 +339,8 @@ class TodoControllerTest {
                 .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
                         .containsObjectAsJson(errorResult, ErrorResult.class));
 
-        Mockito.verify(todoService, Mockito.never())
-                .create(todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate());
+        Mockito.verify(todoWriteService, Mockito.never())
+                .create(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -257,13 +353,6 @@ class TodoControllerTest {
                 .plannedDate(LocalDate.now().plusDays(1))
                 .position(-1)
                 .build();
-        Mockito.when(todoService.create(
-                        todo.getPosition(),
-                        todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate()))
-                .thenReturn(todo);
         TodoToCreate todoToCreate = new TodoToCreate();
         todoToCreate.setTitle(todo.getTitle());
         todoToCreate.setDescription(todo.getDescription());
@@ -279,12 +368,8 @@ class TodoControllerTest {
                 .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
                         .containsObjectAsJson(errorResult, ErrorResult.class));
 
-        Mockito.verify(todoService, Mockito.never())
-                .create(todo.getPosition(),
-                        todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate());
+        Mockito.verify(todoWriteService, Mockito.never())
+                .create(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -298,13 +383,6 @@ class TodoControllerTest {
                 .plannedDate(LocalDate.now().plusDays(1))
                 .position(1)
                 .build();
-        Mockito.when(todoService.create(
-                        todo.getPosition(),
-                        todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate()))
-                .thenReturn(todo);
         TodoToCreate todoToCreate = new TodoToCreate();
         todoToCreate.setTitle(todo.getTitle());
         todoToCreate.setDescription(todo.getDescription());
@@ -320,12 +398,8 @@ class TodoControllerTest {
                 .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
                         .containsObjectAsJson(errorResult, ErrorResult.class));
 
-        Mockito.verify(todoService, Mockito.never())
-                .create(todo.getPosition(),
-                        todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate());
+        Mockito.verify(todoWriteService, Mockito.never())
+                .create(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -338,13 +412,6 @@ class TodoControllerTest {
                 .plannedDate(LocalDate.now().plusDays(1))
                 .position(1)
                 .build();
-        Mockito.when(todoService.create(
-                        todo.getPosition(),
-                        todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate()))
-                .thenReturn(todo);
         TodoToCreate todoToCreate = new TodoToCreate();
         todoToCreate.setTitle(todo.getTitle());
         todoToCreate.setDescription(todo.getDescription());
@@ -359,12 +426,8 @@ class TodoControllerTest {
                 .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
                         .containsObjectAsJson(errorResult, ErrorResult.class));
 
-        Mockito.verify(todoService, Mockito.never())
-                .create(todo.getPosition(),
-                        todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate());
+        Mockito.verify(todoWriteService, Mockito.never())
+                .create(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -404,11 +467,8 @@ class TodoControllerTest {
                 .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
                         .containsObjectAsJson(errorResult, ErrorResult.class));
 
-        Mockito.verify(todoService, Mockito.never())
-                .create(todo.getTitle(),
-                        todo.getDescription(),
-                        todo.getPriority(),
-                        todo.getPlannedDate());
+        Mockito.verify(todoWriteService, Mockito.never())
+                .create(Mockito.any(), Mockito.any());
         Mockito.verify(priorityService, Mockito.never())
                 .getById(priority.getId());
     }
@@ -428,12 +488,10 @@ class TodoControllerTest {
                 .plannedDate(LocalDate.now().plusDays(1))
                 .position(1L)
                 .build();
-        TodoInfo expectedTodo = modelMapper.map(todo, TodoInfo.class);
-        TodoToUpdate todoToUpdate = modelMapper.map(todo, TodoToUpdate.class);
-        Mockito.when(todoService.save(todo))
+        TodoInfo expectedTodo = todoMapper.toTodoInfo(todo);
+        TodoToUpdate todoToUpdate = toTodoToUpdate(todo);
+        Mockito.when(todoWriteService.update(todo.getId(), todoToUpdate))
                 .thenReturn(todo);
-        Mockito.when(priorityService.getById(priority.getId()))
-                .thenReturn(priority);
 
         mockMvc.perform(MockMvcRequestBuilders.put("/todo/{id}", todo.getId())
                         .contentType(MediaType.APPLICATION_JSON)
@@ -442,9 +500,11 @@ class TodoControllerTest {
                 .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
                         .containsObjectAsJson(expectedTodo, TodoInfo.class));
 
-        Mockito.verify(todoService, Mockito.times(1))
-                .save(todo);
-        Mockito.verify(priorityService, Mockito.times(1))
+        Mockito.verify(todoWriteService, Mockito.times(1))
+                .update(todo.getId(), todoToUpdate);
+        Mockito.verify(todoService, Mockito.never())
+                .save(Mockito.any());
+        Mockito.verify(priorityService, Mockito.never())
                 .getById(priority.getId());
     }
 
@@ -462,7 +522,7 @@ class TodoControllerTest {
         List<FieldValidationError> fieldErrors = errorResult.getFieldErrors();
         fieldErrors.add(new FieldValidationError(Fields.title, "must not be blank"));
         fieldErrors.add(new FieldValidationError(Fields.title, "size must be between 1 and 32"));
-        TodoToUpdate todoToUpdate = modelMapper.map(todo, TodoToUpdate.class);
+        TodoToUpdate todoToUpdate = toTodoToUpdate(todo);
 
         validateUpdateAndErrorResult(todo, todoToUpdate, errorResult);
     }
@@ -479,7 +539,7 @@ class TodoControllerTest {
                 .build();
         ErrorResult errorResult = new ErrorResult();
         errorResult.getFieldErrors().add(new FieldValidationError(Fields.title, "size must be between 1 and 32"));
-        TodoToUpdate todoToUpdate = modelMapper.map(todo, TodoToUpdate.class);
+        TodoToUpdate todoToUpdate = toTodoToUpdate(todo);
 
         validateUpdateAndErrorResult(todo, todoToUpdate, errorResult);
     }
@@ -496,7 +556,7 @@ class TodoControllerTest {
                 .build();
         ErrorResult errorResult = new ErrorResult();
         errorResult.getFieldErrors().add(new FieldValidationError(Fields.id, "must be greater than or equal to 0"));
-        TodoToUpdate todoToUpdate = modelMapper.map(todo, TodoToUpdate.class);
+        TodoToUpdate todoToUpdate = toTodoToUpdate(todo);
 
         MvcResult result = validateUpdate(todo, todoToUpdate);
         Assertions.assertThat(result.getResponse().getContentAsString())
@@ -516,7 +576,7 @@ class TodoControllerTest {
                 .build();
         ErrorResult errorResult = new ErrorResult();
         errorResult.getFieldErrors().add(new FieldValidationError(Fields.description, "size must be between 0 and 1024"));
-        TodoToUpdate todoToUpdate = modelMapper.map(todo, TodoToUpdate.class);
+        TodoToUpdate todoToUpdate = toTodoToUpdate(todo);
 
         validateUpdateAndErrorResult(todo, todoToUpdate, errorResult);
     }
@@ -563,11 +623,23 @@ class TodoControllerTest {
                 .build();
         ErrorResult errorResult = new ErrorResult();
         errorResult.getFieldErrors().add(new FieldValidationError("priorityId", "must be greater than or equal to 0"));
-        TodoToUpdate todoToUpdate = modelMapper.map(todo, TodoToUpdate.class);
+        TodoToUpdate todoToUpdate = toTodoToUpdate(todo);
 
         validateUpdateAndErrorResult(todo, todoToUpdate, errorResult);
     }
 
+    private static TodoToUpdate toTodoToUpdate(Todo todo) {
+        TodoToUpdate todoToUpdate = new TodoToUpdate();
+        todoToUpdate.setTitle(todo.getTitle());
+        todoToUpdate.setDescription(todo.getDescription());
+        Priority priority = todo.getPriority();
+        if(priority != null) {
+            todoToUpdate.setPriorityId(priority.getId());
+        }
+        todoToUpdate.setStatus(todo.getStatus());
+        return todoToUpdate;
+    }
+
     private void validateUpdateAndErrorResult(Todo todo, TodoToUpdate todoToUpdate, ErrorResult errorResult) throws Exception {
         MvcResult result = validateUpdate(todo, todoToUpdate);
         ResponseBodyMatchers.responseBody(objectMapper)
@@ -576,7 +648,7 @@ class TodoControllerTest {
     }
 
     private MvcResult validateUpdate(Todo todo, TodoToUpdate todoToUpdate) throws Exception {
-        Mockito.when(todoService.save(todo))
+        Mockito.when(todoWriteService.update(todo.getId(), todoToUpdate))
                 .thenReturn(todo);
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders.put("/todo/{id}", todo.getId())
@@ -585,8 +657,8 @@ class TodoControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isBadRequest())
                 .andReturn();
 
-        Mockito.verify(todoService, Mockito.never())
-                .save(todo);
+        Mockito.verify(todoWriteService, Mockito.never())
+                .update(todo.getId(), todoToUpdate);
         return result;
     }
 
@@ -595,14 +667,19 @@ class TodoControllerTest {
         SwapParameter swapParameter = new SwapParameter();
         swapParameter.setFrom(1);
         swapParameter.setTo(2);
+        Mockito.when(todoWriteService.swap(swapParameter.getFrom(), swapParameter.getTo()))
+                .thenReturn(List.of(4L, 7L));
+        String token = todoChangeLog.token();
 
         mockMvc.perform(MockMvcRequestBuilders.put("/todo/swap")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(swapParameter)))
                 .andExpect(MockMvcResultMatchers.status().isOk());
 
-        Mockito.verify(todoService, Mockito.times(1))
+        Mockito.verify(todoWriteService, Mockito.times(1))
                 .swap(swapParameter.getFrom(), swapParameter.getTo());
+        Assertions.assertThat(todoChangeLog.since(token).upserted())
+                .containsExactlyInAnyOrder(4L, 7L);
     }
 
     @Test
@@ -622,7 +699,7 @@ class TodoControllerTest {
                 .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
                         .containsObjectAsJson(errorResult, ErrorResult.class));
 
-        Mockito.verify(todoService, Mockito.never())
+        Mockito.verify(todoWriteService, Mockito.never())
                 .swap(swapParameter.getFrom(), swapParameter.getTo());
     }
 
@@ -635,28 +712,14 @@ class TodoControllerTest {
 
     @Test
     void all() throws Exception {
-        List<Todo> todos = List.of(
-                Todo.builder()
-                        .id(1L)
-                        .title("title1")
-                        .status(Status.OPEN)
-                        .creationDate(LocalDate.now())
-                        .plannedDate(LocalDate.now().plusDays(1))
-                        .position(0)
-                        .build(),
-                Todo.builder()
-                        .id(2L)
-                        .title("title2")
-                        .status(Status.OPEN)
-                        .creationDate(LocalDate.now())
-                        .plannedDate(LocalDate.now().plusDays(1))
-                        .position(1)
-                        .build()
+        List<TodoRow> rows = List.of(
+                new TodoRow(1L, "title1", null, Status.OPEN, LocalDate.now(), LocalDate.now().plusDays(1), null, 0L, null, null, null),
+                new TodoRow(2L, "title2", "description2", Status.OPEN, LocalDate.now(), LocalDate.now().plusDays(1), null, 1L, 3L, "name", 0L)
         );
-        Mockito.when(todoService.getAll())
-                .thenReturn(todos);
-        List<TodoInfo> todoInfos = todos.stream()
-                .map(todo -> modelMapper.map(todo, TodoInfo.class))
+        Mockito.when(todoApiRepository.findAllRows())
+                .thenReturn(rows);
+        List<TodoInfo> todoInfos = rows.stream()
+                .map(row -> todoMapper.toTodoInfo(row))
                 .toList();
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/todo/all"))
@@ -670,22 +733,14 @@ class TodoControllerTest {
     @Test
     void deleteById() throws Exception {
         Long id = 1L;
-        Todo todo = Todo.builder()
-                .id(id)
-                .title("title")
-                .status(Status.OPEN)
-                .creationDate(LocalDate.now())
-                .plannedDate(LocalDate.now().plusDays(1))
-                .position(0)
-                .build();
-        Mockito.when(todoService.deleteById(id))
-                .thenReturn(todo);
+        Mockito.when(todoWriteService.delete(List.of(id)))
+                .thenReturn(new TodoWriteService.Deletion(List.of(id), 0));
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/todo/{id}", id))
                 .andExpect(MockMvcResultMatchers.status().isOk());
 
-        Mockito.verify(todoService, Mockito.times(1))
-                .deleteById(id);
+        Mockito.verify(todoWriteService, Mockito.times(1))
+                .delete(List.of(id));
     }
 
     @Test
@@ -699,7 +754,7 @@ class TodoControllerTest {
         Assertions.assertThat(result.getResponse().getContentAsString())
                 .isEqualTo("Not valid due to validation error: delete.id: must be greater than or equal to 0");
 
-        Mockito.verify(todoService, Mockito.never()).deleteById(id);
+        Mockito.verifyNoInteractions(todoWriteService);
     }
 
     @Test
@@ -711,59 +766,31 @@ class TodoControllerTest {
     @Test
     void deleteAllById() throws Exception {
         Set<Long> ids = Set.of(1L, 2L);
-        List<Todo> todo = List.of(
-                Todo.builder()
-                        .id(1L)
-                        .title("title1")
-                        .status(Status.OPEN)
-                        .creationDate(LocalDate.now())
-                        .plannedDate(LocalDate.now().plusDays(1))
-                        .position(0)
-                        .build(),
-                Todo.builder()
-                        .id(2L)
-                        .title("title2")
-                        .status(Status.OPEN)
-                        .creationDate(LocalDate.now())
-                        .plannedDate(LocalDate.now().plusDays(1))
-                        .position(1)
-                        .build()
-        );
-        Mockito.when(todoService.deleteAllById(ids))
-                .thenReturn(todo);
+        Mockito.when(todoWriteService.delete(ids))
+                .thenReturn(new TodoWriteService.Deletion(List.of(1L, 2L), 0));
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/todo")
                         .contentType(MediaType.APPLICATION_JSON)
                         .param("ids", ids.stream().map(Object::toString).toArray(String[]::new)))
                 .andExpect(MockMvcResultMatchers.status().isOk());
 
-        Mockito.verify(todoService, Mockito.times(1))
-                .deleteAllById(ids);
+        Mockito.verify(todoWriteService, Mockito.times(1))
+                .delete(ids);
     }
 
     @Test
     void deleteAllByIdWithSameIds() throws Exception {
         List<Long> ids = List.of(1L, 1L);
-        List<Todo> todo = List.of(
-                Todo.builder()
-                        .id(1L)
-                        .title("title")
-                        .status(Status.OPEN)
-                        .creationDate(LocalDate.now())
-                        .plannedDate(LocalDate.now().plusDays(1))
-                        .position(0)
-                        .build()
-        );
-        Mockito.when(todoService.deleteAllById(new HashSet<>(ids)))
-                .thenReturn(todo);
+        Mockito.when(todoWriteService.delete(new HashSet<>(ids)))
+                .thenReturn(new TodoWriteService.Deletion(List.of(1L), 0));
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/todo")
                         .contentType(MediaType.APPLICATION_JSON)
                         .param("ids", ids.stream().map(Object::toString).toArray(String[]::new)))
                 .andExpect(MockMvcResultMatchers.status().isOk());
 
-        Mockito.verify(todoService, Mockito.times(1))
-                .deleteAllById(new HashSet<>(ids));
+        Mockito.verify(todoWriteService, Mockito.times(1))
+                .delete(new HashSet<>(ids));
     }
 
     @Test
@@ -779,8 +806,7 @@ class TodoControllerTest {
         Assertions.assertThat(result.getResponse().getContentAsString())
                 .isEqualTo("Not valid due to validation error: ID set must not contain negative IDs.");
 
-        Mockito.verify(todoService, Mockito.never())
-                .deleteAllById(ids);
+        Mockito.verifyNoInteractions(todoWriteService);
     }
 
     @Test
@@ -845,17 +871,32 @@ class TodoControllerTest {
                 .plannedDate(LocalDate.now().plusDays(1))
                 .position(0)
                 .build();
-        TodoInfo expectedPriorityInfo = modelMapper.map(todo, TodoInfo.class);
-        Mockito.when(todoService.getById(id))
-                .thenReturn(todo);
+        TodoInfo expectedPriorityInfo = todoMapper.toTodoInfo(todo);
+        Mockito.when(todoApiRepository.findRowsById(Set.of(id)))
+                .thenReturn(List.of(new TodoRow(id, todo.getTitle(), null, todo.getStatus(), todo.getCreationDate(),
+                        todo.getPlannedDate(), null, todo.getPosition(), null, null, null)));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/todo/{id}", id))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
                         .containsObjectAsJson(expectedPriorityInfo, TodoInfo.class));
 
-        Mockito.verify(todoService, Mockito.times(1))
-                .getById(id);
+        Mockito.verify(todoApiRepository, Mockito.times(1))
+                .findRowsById(Set.of(id));
+    }
+
+    @Test
+    void getByIdNotFound() throws Exception {
+        Long id = 1L;
+        Mockito.when(todoApiRepository.findRowsById(Set.of(id)))
+                .thenReturn(List.of());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/todo/{id}", id))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo("Not valid due to validation error: Todo with ID 1 doesn't exist.");
     }
 
     @Test
@@ -869,7 +910,7 @@ class TodoControllerTest {
         Assertions.assertThat(result.getResponse().getContentAsString())
                 .isEqualTo("Not valid due to validation error: getById.id: must be greater than or equal to 0");
 
-        Mockito.verify(todoService, Mockito.never()).getById(id);
+        Mockito.verify(todoApiRepository, Mockito.never()).findRowsById(Mockito.anyCollection());
     }
 
     @Test
@@ -881,29 +922,15 @@ class TodoControllerTest {
     @Test
     void getAllById() throws Exception {
         Set<Long> ids = Set.of(1L, 2L);
-        List<Todo> todos = List.of(
-                Todo.builder()
-                        .id(1L)
-                        .title("title1")
-                        .status(Status.OPEN)
-                        .creationDate(LocalDate.now())
-                        .plannedDate(LocalDate.now().plusDays(1))
-                        .position(0)
-                        .build(),
-                Todo.builder()
-                        .id(2L)
-                        .title("title2")
-                        .status(Status.OPEN)
-                        .creationDate(LocalDate.now())
-                        .plannedDate(LocalDate.now().plusDays(1))
-                        .position(1)
-                        .build()
+        List<TodoRow> rows = List.of(
+                new TodoRow(1L, "title1", null, Status.OPEN, LocalDate.now(), LocalDate.now().plusDays(1), null, 0L, null, null, null),
+                new TodoRow(2L, "title2", "description2", Status.OPEN, LocalDate.now(), LocalDate.now().plusDays(1), null, 1L, 3L, "name", 0L)
         );
-        List<TodoInfo> expectedPriorityInfos = todos.stream()
-                .map(todo -> modelMapper.map(todo, TodoInfo.class))
+        List<TodoInfo> expectedPriorityInfos = rows.stream()
+                .map(row -> todoMapper.toTodoInfo(row))
                 .toList();
-        Mockito.when(todoService.getAllById(ids))
-                .thenReturn(todos);
+        Mockito.when(todoApiRepository.findRowsById(ids))
+                .thenReturn(rows);
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/todo/search")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -914,8 +941,8 @@ class TodoControllerTest {
         Assertions.assertThat(result.getResponse().getContentAsString())
                 .isEqualTo(objectMapper.writeValueAsString(expectedPriorityInfos));
 
-        Mockito.verify(todoService, Mockito.times(1))
-                .getAllById(ids);
+        Mockito.verify(todoApiRepository, Mockito.times(1))
+                .findRowsById(ids);
     }
 
     @Test
@@ -931,8 +958,8 @@ class TodoControllerTest {
         Assertions.assertThat(result.getResponse().getContentAsString())
                 .isEqualTo("Not valid due to validation error: ID set must not contain negative IDs.");
 
-        Mockito.verify(todoService, Mockito.never())
-                .getAllById(ids);
+        Mockito.verify(todoApiRepository, Mockito.never())
+                .findRowsById(ids);
     }
 
     @Test
@@ -957,6 +984,95 @@ class TodoControllerTest {
 
     @Test
     void page() throws Exception {
+        List<TodoRow> rows = List.of(
+                new TodoRow(1L, "title1", null, Status.OPEN, LocalDate.now(), LocalDate.now().plusDays(1), null, 0L, null, null, null),
+                new TodoRow(2L, "title2", "description2", Status.OPEN, LocalDate.now(), LocalDate.now().plusDays(1), null, 1L, 3L, "name", 0L)
+        );
+        PageRequest pageRequest = PageRequest.of(0, 20, Direction.ASC, Todo.Fields.position);
+        Page<TodoRow> page = new PageImpl<>(rows, pageRequest, 2);
+        Page<TodoInfo> expectedPage = page.map(row -> todoMapper.toTodoInfo(row));
+        Mockito.when(todoApiRepository.findRows(pageRequest))
+                .thenReturn(page);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/todo")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(objectMapper.writeValueAsString(expectedPage));
+
+        Mockito.verify(todoApiRepository, Mockito.times(1))
+                .findRows(pageRequest);
+    }
+
+    @Test
+    void pageAfter() throws Exception {
+        List<TodoRow> rows = List.of(
+                new TodoRow(1L, "title1", null, Status.OPEN, LocalDate.now(), LocalDate.now().plusDays(1), null, 11L, null, null, null),
+                new TodoRow(2L, "title2", null, Status.OPEN, LocalDate.now(), LocalDate.now().plusDays(1), null, 12L, null, null, null)
+        );
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        TodoInfo todoInfo = todoMapper.toTodoInfo(rows.get(0));
+        todoInfo.setPosition(4L);
+        CursorPage<TodoInfo> expectedPage = new CursorPage<>(
+                List.of(todoInfo),
+                CursorUtils.encode(11, 4));
+        Mockito.when(todoApiRepository.findRowsByPositionGreaterThan(10, pageRequest))
+                .thenReturn(rows);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/todo")
+                        .param("after", CursorUtils.encode(10, 3))
+                        .param("limit", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(objectMapper.writeValueAsString(expectedPage));
+
+        Mockito.verify(todoApiRepository, Mockito.times(1))
+                .findRowsByPositionGreaterThan(10, pageRequest);
+        Mockito.verify(todoApiRepository, Mockito.never())
+                .findRows(Mockito.any());
+        Mockito.verify(todoApiRepository, Mockito.never())
+                .findIndexesOf(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void pageAfterReturnsIndexes() throws Exception {
+        long rank = 5 * PositionRepository.GAP;
+        List<TodoRow> rows = List.of(
+                new TodoRow(1L, "title1", null, Status.OPEN, LocalDate.now(), LocalDate.now().plusDays(1), null, rank, null, null, null)
+        );
+        TodoInfo todoInfo = todoMapper.toTodoInfo(rows.get(0));
+        todoInfo.setPosition(0L);
+        CursorPage<TodoInfo> expectedPage = new CursorPage<>(List.of(todoInfo), null);
+        Mockito.when(todoApiRepository.findRowsByPositionGreaterThan(CursorUtils.NO_POSITION, PageRequest.of(0, 2)))
+                .thenReturn(rows);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/todo")
+                        .param("limit", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(objectMapper.writeValueAsString(expectedPage));
+    }
+
+    @Test
+    void pageAfterWithInvalidCursor() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/todo")
+                        .param("after", CursorUtils.encode(10).substring(1))
+                        .param("limit", "1"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo("Not valid due to validation error: Cursor is not valid.");
+    }
+
+    @Test
+    void allAsNdjson() throws Exception {
         List<Todo> todos = List.of(
                 Todo.builder()
                         .id(1L)
@@ -975,21 +1091,462 @@ class TodoControllerTest {
                         .position(1)
                         .build()
         );
-        PageRequest pageRequest = PageRequest.of(0, 20, Direction.ASC, Todo.Fields.position);
-        Page<Todo> page = new PageImpl<>(todos, pageRequest, 2);
-        Page<TodoInfo> expectedPage = page.map(todo -> modelMapper.map(todo, TodoInfo.class));
-        Mockito.when(todoRepository.findAll(pageRequest))
-                .thenReturn(page);
+        Mockito.when(todoApiRepository.streamAllByOrderByPosition())
+                .thenReturn(todos.stream());
+        StringBuilder expectedContent = new StringBuilder();
+        for(Todo todo : todos) {
+            expectedContent.append(objectMapper.writeValueAsString(todoMapper.toTodoInfo(todo)))
+                    .append('\n');
+        }
 
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/todo")
-                        .contentType(MediaType.APPLICATION_JSON))
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders.get("/todo/all")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
                 .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
                 .andReturn();
 
         Assertions.assertThat(result.getResponse().getContentAsString())
-                .isEqualTo(objectMapper.writeValueAsString(expectedPage));
+                .isEqualTo(expectedContent.toString());
+
+        Mockito.verify(todoService, Mockito.never())
+                .getAll();
+    }
+
+    @Test
+    void createBatch() throws Exception {
+        List<Todo> todos = List.of(
+                Todo.builder()
+                        .id(1L)
+                        .title("title1")
+                        .status(Status.OPEN)
+                        .creationDate(LocalDate.now())
+                        .plannedDate(LocalDate.now().plusDays(1))
+                        .position(0)
+                        .build(),
+                Todo.builder()
+                        .id(2L)
+                        .title("title2")
+                        .status(Status.OPEN)
+                        .creationDate(LocalDate.now())
+                        .plannedDate(LocalDate.now().plusDays(1))
+                        .position(1)
+                        .build()
+        );
+        List<TodoToCreate> todosToCreate = todos.stream()
+                .map(todo -> {
+                    TodoToCreate todoToCreate = new TodoToCreate();
+                    todoToCreate.setTitle(todo.getTitle());
+                    todoToCreate.setPlannedDate(todo.getPlannedDate());
+                    return todoToCreate;
+                })
+                .toList();
+        List<TodoInfo> expectedTodoInfos = todos.stream()
+                .map(todo -> todoMapper.toTodoInfo(todo))
+                .toList();
+        Mockito.when(todoBatchService.create(todosToCreate))
+                .thenReturn(todos);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/todo/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(todosToCreate)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(objectMapper.writeValueAsString(expectedTodoInfos));
+
+        Mockito.verify(todoBatchService, Mockito.times(1))
+                .create(todosToCreate);
+    }
+
+    @Test
+    void createBatchWithEmptyTitle() throws Exception {
+        TodoToCreate todoToCreate = new TodoToCreate();
+        todoToCreate.setTitle("");
+        todoToCreate.setPlannedDate(LocalDate.now());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/todo/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(todoToCreate))))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verifyNoInteractions(todoBatchService);
+    }
+
+    @Test
+    void createBatchWithoutItems() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/todo/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo("Not valid due to validation error: create.todosToCreate: must not be empty");
+
+        Mockito.verifyNoInteractions(todoBatchService);
+    }
+
+    @Test
+    void updateBatch() throws Exception {
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .status(Status.OPEN)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .position(0)
+                .build();
+        Map<Long, TodoToUpdate> todosToUpdate = Map.of(todo.getId(), toTodoToUpdate(todo));
+        Mockito.when(todoBatchService.update(todosToUpdate))
+                .thenReturn(List.of(todo));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.put("/todo/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(todosToUpdate)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+
+        Assertions.assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(objectMapper.writeValueAsString(List.of(todoMapper.toTodoInfo(todo))));
+
+        Mockito.verify(todoBatchService, Mockito.times(1))
+                .update(todosToUpdate);
+        Mockito.verify(todoService, Mockito.never())
+                .save(Mockito.any());
+    }
+
+    @Test
+    void updateBatchWithEmptyStatus() throws Exception {
+        TodoToUpdate todoToUpdate = new TodoToUpdate();
+        todoToUpdate.setTitle("title");
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/todo/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(1L, todoToUpdate))))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verifyNoInteractions(todoBatchService);
+    }
+
+    @Test
+    void patchStatus() throws Exception {
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .status(Status.OPEN)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .position(0)
+                .build();
+        TodoPatch todoPatch = new TodoPatch();
+        todoPatch.setStatus(Status.OPEN);
+        Mockito.when(todoWriteService.patch(todo.getId(), todoPatch))
+                .thenReturn(todo);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/todo/{id}", todo.getId())
+                        .contentType(ApiMediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                        .content("{\"status\":\"OPEN\"}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(todoMapper.toTodoInfo(todo), TodoInfo.class));
+
+        ArgumentCaptor<TodoPatch> captor = ArgumentCaptor.forClass(TodoPatch.class);
+        Mockito.verify(todoWriteService, Mockito.times(1))
+                .patch(Mockito.eq(todo.getId()), captor.capture());
+        Assertions.assertThat(captor.getValue().getPresentFields())
+                .containsExactly(TodoPatch.Fields.status);
+        Mockito.verifyNoInteractions(priorityService);
+    }
+
+    @Test
+    void patchWithNullDescription() throws Exception {
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .status(Status.OPEN)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .position(0)
+                .build();
+        TodoPatch todoPatch = new TodoPatch();
+        todoPatch.setDescription(null);
+        Mockito.when(todoWriteService.patch(todo.getId(), todoPatch))
+                .thenReturn(todo);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/todo/{id}", todo.getId())
+                        .contentType(ApiMediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                        .content("{\"description\":null}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Mockito.verify(todoWriteService, Mockito.times(1))
+                .patch(todo.getId(), todoPatch);
+    }
+
+    @Test
+    void patchWithBlankTitle() throws Exception {
+        ErrorResult errorResult = new ErrorResult();
+        errorResult.getFieldErrors().add(new FieldValidationError(Fields.title, "must not be blank"));
+        errorResult.getFieldErrors().add(new FieldValidationError(Fields.title, "size must be between 1 and 32"));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/todo/{id}", 1L)
+                        .contentType(ApiMediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                        .content("{\"title\":\"\"}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(errorResult, ErrorResult.class));
+
+        Mockito.verifyNoInteractions(todoWriteService);
+    }
+
+    @Test
+    void patchWithNullStatus() throws Exception {
+        ErrorResult errorResult = new ErrorResult();
+        errorResult.getFieldErrors().add(new FieldValidationError(Fields.status, "must not be null"));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/todo/{id}", 1L)
+                        .contentType(ApiMediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                        .content("{\"status\":null}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(errorResult, ErrorResult.class));
+
+        Mockito.verifyNoInteractions(todoWriteService);
+    }
+
+    @Test
+    void allNotModified() throws Exception {
+        Mockito.when(todoApiRepository.findAllRows())
+                .thenReturn(List.of());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/todo/all"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/todo/all")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        Mockito.verify(todoApiRepository, Mockito.times(1))
+                .findAllRows();
+    }
+
+    @Test
+    void allAsNdjsonHasOwnEtag() throws Exception {
+        Mockito.when(todoApiRepository.findAllRows())
+                .thenReturn(List.of());
+        Mockito.when(todoApiRepository.streamAllByOrderByPosition())
+                .then(invocation -> Stream.empty());
+
+        String jsonEtag = mockMvc.perform(MockMvcRequestBuilders.get("/todo/all"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders.get("/todo/all")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        String ndjsonEtag = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        Assertions.assertThat(ndjsonEtag)
+                .isNotEqualTo(jsonEtag);
+        mockMvc.perform(MockMvcRequestBuilders.get("/todo/all")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, ndjsonEtag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void allModifiedAfterDelete() throws Exception {
+        Mockito.when(todoApiRepository.findAllRows())
+                .thenReturn(List.of());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/todo/all"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/todo/all"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/todo/all")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, Matchers.not(etag)));
+    }
+
+    @Test
+    void changes() throws Exception {
+        String since = todoChangeLog.token();
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .status(Status.OPEN)
+                .creationDate(LocalDate.now())
+                .position(0)
+                .build();
+        Mockito.when(todoSyncService.changesSince(since))
+                .thenReturn(new TodoSyncService.Changes("next", false, List.of(todo), Set.of(2L)));
+        TodoChanges expectedChanges = new TodoChanges("next", false, List.of(todoMapper.toTodoInfo(todo)), Set.of(2L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/todo/changes")
+                        .param("since", since))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(expectedChanges, TodoChanges.class));
+    }
+
+    @Test
+    void deleteByIdIsJournaled() throws Exception {
+        Long id = 1L;
+        Mockito.when(todoWriteService.delete(List.of(id)))
+                .thenReturn(new TodoWriteService.Deletion(List.of(id), 3));
+        String token = todoChangeLog.token();
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/todo/{id}", id))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Delta delta = todoChangeLog.since(token);
+        Assertions.assertThat(delta.deleted()).containsExactly(id);
+        Assertions.assertThat(delta.shiftedFrom()).isEqualTo(3);
+    }
+
+    @Test
+    void createWithPositionIsJournaled() throws Exception {
+        Todo todo = Todo.builder()
+                .id(5L)
+                .title("title")
+                .status(Status.OPEN)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .position(2)
+                .build();
+        TodoToCreate todoToCreate = new TodoToCreate();
+        todoToCreate.setTitle(todo.getTitle());
+        todoToCreate.setPlannedDate(todo.getPlannedDate());
+        todoToCreate.setPosition(1L);
+        Mockito.when(todoWriteService.create(todoToCreate, null))
+                .thenReturn(new TodoWriteService.Placement(todo, true));
+        String token = todoChangeLog.token();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/todo")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(todoToCreate)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Delta delta = todoChangeLog.since(token);
+        Assertions.assertThat(delta.upserted()).containsExactly(todo.getId());
+        Assertions.assertThat(delta.shiftedFrom()).isEqualTo(1);
+    }
+
+    @Test
+    void move() throws Exception {
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .status(Status.OPEN)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .position(900)
+                .build();
+        MoveParameter moveParameter = new MoveParameter();
+        moveParameter.setFrom(2);
+        moveParameter.setTo(899);
+        Mockito.when(todoWriteService.move(moveParameter.getFrom(), moveParameter.getTo()))
+                .thenReturn(new TodoWriteService.Placement(todo, false));
+        String token = todoChangeLog.token();
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/todo/move")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(moveParameter)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(todoMapper.toTodoInfo(todo), TodoInfo.class));
+
+        Mockito.verify(todoWriteService, Mockito.times(1))
+                .move(moveParameter.getFrom(), moveParameter.getTo());
+        Mockito.verify(todoService, Mockito.never())
+                .swap(Mockito.anyLong(), Mockito.anyLong());
+        Delta delta = todoChangeLog.since(token);
+        Assertions.assertThat(delta.upserted()).containsExactly(todo.getId());
+        Assertions.assertThat(delta.shiftedFrom()).isEqualTo(TodoChangeLog.NO_SHIFT);
+    }
+
+    @Test
+    void moveWithNegativePositions() throws Exception {
+        MoveParameter moveParameter = new MoveParameter();
+        moveParameter.setFrom(-1);
+        moveParameter.setTo(-2);
+        ErrorResult errorResult = new ErrorResult();
+        List<FieldValidationError> fieldErrors = errorResult.getFieldErrors();
+        fieldErrors.add(new FieldValidationError("from", "Position \"from\" can't be negative"));
+        fieldErrors.add(new FieldValidationError("to", "Position \"to\" can't be negative"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/todo/move")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(moveParameter)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(ResponseBodyMatchers.responseBody(objectMapper)
+                        .containsObjectAsJson(errorResult, ErrorResult.class));
+
+        Mockito.verify(todoWriteService, Mockito.never())
+                .move(Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    @Test
+    void order() throws Exception {
+        List<Long> ids = List.of(3L, 1L, 2L);
+        String token = todoChangeLog.token();
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/todo/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ids)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Mockito.verify(todoWriteService, Mockito.times(1))
+                .reorder(ids);
+        Mockito.verify(todoService, Mockito.never())
+                .swap(Mockito.anyLong(), Mockito.anyLong());
+        Assertions.assertThat(todoChangeLog.since(token).shiftedFrom()).isZero();
+    }
+
+    @Test
+    void orderWithNegativeId() throws Exception {
+        List<Long> ids = List.of(1L, -2L);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/todo/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ids)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verify(todoWriteService, Mockito.never())
+                .reorder(Mockito.any());
+    }
+
+    @Test
+    void orderWithoutIds() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/todo/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
 
-        Mockito.verify(todoRepository, Mockito.times(1))
-                .findAll(pageRequest);
+        Mockito.verify(todoWriteService, Mockito.never())
+                .reorder(Mockito.any());
     }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package by.babanin.todo.controller.batch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BatchLoaderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Set<Long>> batches = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(16);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLoadsShareOneQuery() throws Exception {
+        BatchLoader<Long, String> loader = loader(Duration.ofMillis(200), 100);
+
+        List<String> values = loadConcurrently(loader, 16);
+
+        Assertions.assertThat(values)
+                .containsExactlyElementsOf(expectedValues(16));
+        Assertions.assertThat(batches)
+                .hasSize(1);
+        DistributionSummary batchSizes = meterRegistry.get("api.batch.size")
+                .tag("loader", "test")
+                .summary();
+        Assertions.assertThat(batchSizes.count()).isEqualTo(1);
+        Assertions.assertThat(batchSizes.totalAmount()).isEqualTo(16);
+    }
+
+    @Test
+    void fullBatchIsLoadedWithoutWaitingForWindow() throws Exception {
+        BatchLoader<Long, String> loader = loader(Duration.ofMinutes(1), 4);
+
+        List<String> values = loadConcurrently(loader, 16);
+
+        Assertions.assertThat(values)
+                .containsExactlyElementsOf(expectedValues(16));
+        Assertions.assertThat(batches)
+                .hasSize(4)
+                .allSatisfy(batch -> Assertions.assertThat(batch).hasSize(4));
+    }
+
+    @Test
+    void missingKeyLoadsNull() {
+        BatchLoader<Long, String> loader = loader(Duration.ofMillis(1), 100);
+
+        Assertions.assertThat(loader.load(-1L))
+                .isNull();
+    }
+
+    @Test
+    void zeroWindowLoadsEveryKeyOnItsOwn() throws Exception {
+        BatchLoader<Long, String> loader = loader(Duration.ZERO, 100);
+
+        loadConcurrently(loader, 4);
+
+        Assertions.assertThat(batches)
+                .hasSize(4)
+                .allSatisfy(batch -> Assertions.assertThat(batch).hasSize(1));
+    }
+
+    @Test
+    void failureIsRethrownToEveryCaller() {
+        IllegalStateException exception = new IllegalStateException("failed");
+        BatchLoader<Long, String> loader = new BatchLoader<>("test", ids -> {
+            throw exception;
+        }, Duration.ofMillis(1), 100, meterRegistry);
+
+        Assertions.assertThatThrownBy(() -> loader.load(1L))
+                .isSameAs(exception);
+    }
+
+    @Test
+    void errorIsRethrownToEveryCaller() {
+        AssertionError error = new AssertionError("failed");
+        BatchLoader<Long, String> loader = new BatchLoader<>("test", ids -> {
+            throw error;
+        }, Duration.ofMillis(1), 100, meterRegistry);
+
+        Assertions.assertThatThrownBy(() -> loader.load(1L))
+                .isSameAs(error);
+    }
+
+    private BatchLoader<Long, String> loader(Duration window, int maxBatchSize) {
+        return new BatchLoader<>("test", ids -> {
+            batches.add(Set.copyOf(ids));
+            return ids.stream()
+                    .filter(id -> id >= 0)
+                    .collect(Collectors.toMap(Function.identity(), id -> "value" + id));
+        }, window, maxBatchSize, meterRegistry);
+    }
+
+    private List<String> loadConcurrently(BatchLoader<Long, String> loader, int count) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>(count);
+        for(long i = 0; i < count; i++) {
+            long id = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return loader.load(id);
+            }));
+        }
+        start.countDown();
+        List<String> values = new ArrayList<>(count);
+        for(Future<String> future : futures) {
+            values.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return values;
+    }
+
+    private static List<String> expectedValues(int count) {
+        List<String> values = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            values.add("value" + i);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,90 @@
+package by.babanin.todo.controller.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import by.babanin.todo.application.service.PriorityService;
+import by.babanin.todo.model.Priority;
+
+class PriorityCacheTest {
+
+    private final PriorityService priorityService = Mockito.mock(PriorityService.class);
+    private final PriorityCache priorityCache = new PriorityCache(priorityService, 16, Duration.ofMinutes(1));
+
+    @Test
+    void getAllByIdLoadsOnlyMissingPriorities() {
+        Priority first = priority(1L);
+        Priority second = priority(2L);
+        Mockito.when(priorityService.getAllById(Set.of(1L)))
+                .thenReturn(List.of(first));
+        Mockito.when(priorityService.getAllById(Set.of(2L, 3L)))
+                .thenReturn(List.of(second));
+
+        priorityCache.getAllById(Set.of(1L));
+
+        Assertions.assertThat(priorityCache.getAllById(Set.of(1L, 2L, 3L)))
+                .containsOnlyKeys(1L, 2L)
+                .containsValues(first, second);
+        Mockito.verify(priorityService, Mockito.times(1))
+                .getAllById(Set.of(1L));
+        Mockito.verify(priorityService, Mockito.times(1))
+                .getAllById(Set.of(2L, 3L));
+    }
+
+    @Test
+    void findByIdOfUnknownPriority() {
+        Mockito.when(priorityService.getAllById(Set.of(1L)))
+                .thenReturn(List.of());
+
+        Assertions.assertThat(priorityCache.findById(1L))
+                .isEmpty();
+    }
+
+    @Test
+    void loadRacingWithInvalidationIsNotCached() {
+        Priority stale = priority(1L);
+        Priority fresh = priority(1L);
+        fresh.setName("fresh");
+        Mockito.when(priorityService.getAllById(Set.of(1L)))
+                .then(invocation -> {
+                    priorityCache.invalidateAll();
+                    return List.of(stale);
+                })
+                .thenReturn(List.of(fresh));
+
+        Assertions.assertThat(priorityCache.findById(1L))
+                .containsSame(stale);
+        Assertions.assertThat(priorityCache.findById(1L))
+                .containsSame(fresh);
+        Assertions.assertThat(priorityCache.findById(1L))
+                .containsSame(fresh);
+        Mockito.verify(priorityService, Mockito.times(2))
+                .getAllById(Set.of(1L));
+    }
+
+    @Test
+    void getByIdIsCached() {
+        Priority priority = priority(1L);
+        Mockito.when(priorityService.getById(1L))
+                .thenReturn(priority);
+
+        priorityCache.getById(1L);
+
+        Assertions.assertThat(priorityCache.getById(1L))
+                .isSameAs(priority);
+        Mockito.verify(priorityService, Mockito.times(1))
+                .getById(1L);
+    }
+
+    private static Priority priority(Long id) {
+        return Priority.builder()
+                .id(id)
+                .name("name" + id)
+                .build();
+    }
+}
@@ -0,0 +1,198 @@
+package by.babanin.todo.controller.datasource;
+
+import java.time.LocalDate;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+
+import by.babanin.todo.controller.metrics.PoolSaturationMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Boots the application against two in-memory H2 databases and drives real endpoints, so writes and reads go
+ * through the JPA transaction manager and the Hibernate dialect, which ask for connections in their own way.
+ * Hibernate creates the schema on the primary; {@link #replicate()} copies the primary to the replica
+ * the way replication would, after which the replica rows are changed to tell where a read came from.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:api.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "api.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "api.datasource.replica.max-staleness=0s"
+})
+class ReplicaRoutingApplicationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        replicate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.update("delete from todo");
+        primary.update("delete from priority");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void writeRunsThroughJpaOnPrimary() throws Exception {
+        Assertions.assertThat(transactionManager)
+                .isInstanceOf(ReplicaRoutingJpaTransactionManager.class);
+        Assertions.assertThat(((JpaTransactionManager) transactionManager).getJpaDialect())
+                .isInstanceOf(HibernateJpaDialect.class);
+
+        createTodo("written");
+
+        Assertions.assertThat(primary.queryForObject("select count(*) from todo", Long.class))
+                .isEqualTo(1);
+        Assertions.assertThat(replica.queryForObject("select count(*) from todo", Long.class))
+                .isZero();
+    }
+
+    @Test
+    void readOnlyRequestReadsReplicaWithoutFillingCaches() throws Exception {
+        long id = post("/priorities", "{\"name\":\"written\"}").get("id").asLong();
+        replicate();
+        replica.update("update priority set name = 'replica'");
+
+        Assertions.assertThat(get("/priorities/search?ids=" + id).get(0).get("name").asText())
+                .isEqualTo("replica");
+
+        replica.update("update priority set name = 'caught up'");
+
+        Assertions.assertThat(get("/priorities/search?ids=" + id).get(0).get("name").asText())
+                .isEqualTo("caught up");
+    }
+
+    @Test
+    void versionedReadsUsePrimary() throws Exception {
+        long id = createTodo("written");
+        replicate();
+        replica.update("update todo set title = 'replica'");
+
+        Assertions.assertThat(get("/todo/search?ids=" + id).get(0).get("title").asText())
+                .isEqualTo("replica");
+        Assertions.assertThat(get("/todo/all").get(0).get("title").asText())
+                .isEqualTo("written");
+        Assertions.assertThat(get("/todo/changes").get("upserts").get(0).get("title").asText())
+                .isEqualTo("written");
+    }
+
+    @Test
+    void cacheFillingRequestReadsPrimary() throws Exception {
+        long id = post("/priorities", "{\"name\":\"written\"}").get("id").asLong();
+        replicate();
+        replica.update("update priority set name = 'replica'");
+
+        Assertions.assertThat(get("/priorities/" + id).get("name").asText())
+                .isEqualTo("written");
+        Assertions.assertThat(get("/priorities/all").get(0).get("name").asText())
+                .isEqualTo("written");
+    }
+
+    @Test
+    void batchedLookupReadsPrimary() throws Exception {
+        long id = createTodo("written");
+        replicate();
+        replica.update("update todo set title = 'replica'");
+
+        Assertions.assertThat(get("/todo/" + id).get("title").asText())
+                .isEqualTo("written");
+    }
+
+    @Test
+    void bothPoolsReportSaturation() {
+        Assertions.assertThat(meterRegistry.get(PoolSaturationMetrics.METRIC_NAME).gauges())
+                .extracting(gauge -> gauge.getId().getTag("pool"))
+                .contains("hikari-primary", "hikari-replica");
+    }
+
+    private long createTodo(String title) throws Exception {
+        String todo = "{\"title\":\"" + title + "\",\"plannedDate\":\"" + LocalDate.now().plusDays(1) + "\"}";
+        return post("/todo", todo).get("id").asLong();
+    }
+
+    private JsonNode post(String path, String body) throws Exception {
+        String response = mockMvc.perform(MockMvcRequestBuilders.post(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private JsonNode get(String path) throws Exception {
+        String response = mockMvc.perform(MockMvcRequestBuilders.get(path))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    /**
+     * Replaces the replica with a copy of the primary.
+     */
+    private void replicate() {
+        replica.execute("drop all objects");
+        for(String statement : primary.queryForList("script", String.class)) {
+            if(!statement.startsWith("CREATE USER")) {
+                replica.execute(statement);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package by.babanin.todo.controller.datasource;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica. Each knows its own name,
+ * so a query shows where the connection was routed.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final EmbeddedDatabase primary = database("primary");
+    private final EmbeddedDatabase replica = database("replica");
+
+    @AfterEach
+    void tearDown() {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() {
+        DataSource dataSource = routing(Duration.ofMinutes(1));
+
+        String name = readOnlyTransaction(dataSource).execute(status -> name(dataSource));
+
+        Assertions.assertThat(name)
+                .isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransactionUsesPrimary() {
+        DataSource dataSource = routing(Duration.ofMinutes(1));
+
+        String name = readWriteTransaction(dataSource).execute(status -> name(dataSource));
+
+        Assertions.assertThat(name)
+                .isEqualTo("primary");
+    }
+
+    @Test
+    void withoutTransactionUsesPrimary() {
+        DataSource dataSource = routing(Duration.ofMinutes(1));
+
+        Assertions.assertThat(name(dataSource))
+                .isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactionUsesPrimaryWithinStalenessAfterWrite() {
+        DataSource dataSource = routing(Duration.ofMinutes(1));
+        readWriteTransaction(dataSource).execute(status -> name(dataSource));
+
+        String name = readOnlyTransaction(dataSource).execute(status -> name(dataSource));
+
+        Assertions.assertThat(name)
+                .isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplicaOnceStalenessIsOver() {
+        DataSource dataSource = routing(Duration.ZERO);
+        readWriteTransaction(dataSource).execute(status -> name(dataSource));
+
+        String name = readOnlyTransaction(dataSource).execute(status -> name(dataSource));
+
+        Assertions.assertThat(name)
+                .isEqualTo("replica");
+    }
+
+    @Test
+    void rolledBackTransactionDoesNotPinPrimary() {
+        DataSource dataSource = routing(Duration.ofMinutes(1));
+        readWriteTransaction(dataSource).executeWithoutResult(status -> {
+            name(dataSource);
+            status.setRollbackOnly();
+        });
+
+        String name = readOnlyTransaction(dataSource).execute(status -> name(dataSource));
+
+        Assertions.assertThat(name)
+                .isEqualTo("replica");
+    }
+
+    @Test
+    void boundTargetIsKept() {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primary, replica, Duration.ofMinutes(1));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        String name = readOnlyTransaction(dataSource).execute(status -> {
+            routingDataSource.bindTarget(false);
+            try {
+                return name(dataSource);
+            }
+            finally {
+                routingDataSource.unbindTarget();
+            }
+        });
+
+        Assertions.assertThat(name)
+                .isEqualTo("primary");
+    }
+
+    private DataSource routing(Duration maxStaleness) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, maxStaleness));
+    }
+
+    private static TransactionTemplate readWriteTransaction(DataSource dataSource) {
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    private static TransactionTemplate readOnlyTransaction(DataSource dataSource) {
+        TransactionTemplate transactionTemplate = readWriteTransaction(dataSource);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    private static String name(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("select name from node", String.class);
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table node (name varchar(16))");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return database;
+    }
+}
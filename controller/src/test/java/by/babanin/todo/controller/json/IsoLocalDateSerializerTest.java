@@ -0,0 +1,74 @@
+package by.babanin.todo.controller.json;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonFormat.Shape;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+class IsoLocalDateSerializerTest {
+
+    private static final LocalDate DATE = LocalDate.of(2023, 1, 2);
+
+    private final ObjectMapper javaTimeObjectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ObjectMapper apiObjectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .registerModule(new ApiJsonModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void sameTextAsJavaTimeModule() throws Exception {
+        List<String> dates = List.of("2023-01-01", "2023-12-31", "2024-02-29", "0001-01-01", "0999-09-09", "9999-12-31",
+                "+10000-01-01", "-0001-06-15");
+        for(String date : dates) {
+            LocalDate localDate = LocalDate.parse(date);
+
+            String json = apiObjectMapper.writeValueAsString(localDate);
+
+            Assertions.assertThat(json)
+                    .isEqualTo(javaTimeObjectMapper.writeValueAsString(localDate))
+                    .isEqualTo("\"" + date + "\"");
+        }
+    }
+
+    @Test
+    void writesTimestampsWhenEnabled() throws Exception {
+        javaTimeObjectMapper.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        apiObjectMapper.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        Assertions.assertThat(apiObjectMapper.writeValueAsString(DATE))
+                .isEqualTo(javaTimeObjectMapper.writeValueAsString(DATE))
+                .isEqualTo("[2023,1,2]");
+    }
+
+    @Test
+    void followsJsonFormat() throws Exception {
+        Dates dates = new Dates(DATE, DATE);
+
+        Assertions.assertThat(apiObjectMapper.writeValueAsString(dates))
+                .isEqualTo(javaTimeObjectMapper.writeValueAsString(dates))
+                .isEqualTo("{\"pattern\":\"02.01.2023\",\"epochDay\":" + DATE.toEpochDay() + "}");
+    }
+
+    @Test
+    void followsConfigOverride() throws Exception {
+        javaTimeObjectMapper.configOverride(LocalDate.class).setFormat(JsonFormat.Value.forPattern("yyyy/MM/dd"));
+        apiObjectMapper.configOverride(LocalDate.class).setFormat(JsonFormat.Value.forPattern("yyyy/MM/dd"));
+
+        Assertions.assertThat(apiObjectMapper.writeValueAsString(List.of(DATE)))
+                .isEqualTo(javaTimeObjectMapper.writeValueAsString(List.of(DATE)))
+                .isEqualTo("[\"2023/01/02\"]");
+    }
+
+    record Dates(@JsonFormat(pattern = "dd.MM.yyyy") LocalDate pattern, @JsonFormat(shape = Shape.NUMBER_INT) LocalDate epochDay) {
+
+    }
+}
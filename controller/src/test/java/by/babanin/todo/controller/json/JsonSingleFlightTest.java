@@ -0,0 +1,109 @@
+package by.babanin.todo.controller.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class JsonSingleFlightTest {
+
+    private final JsonSingleFlight singleFlight = new JsonSingleFlight(new ObjectMapper());
+    private final AtomicInteger computations = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<byte[]> leader = executor.submit(() -> singleFlight.write("v1", () -> {
+            started.countDown();
+            await(release);
+            return List.of(computations.incrementAndGet());
+        }));
+        started.await(10, TimeUnit.SECONDS);
+
+        List<Future<byte[]>> followers = new ArrayList<>();
+        for(int i = 0; i < 4; i++) {
+            followers.add(executor.submit(() -> singleFlight.write("v1", () -> List.of(computations.incrementAndGet()))));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        byte[] body = leader.get(10, TimeUnit.SECONDS);
+        Assertions.assertThat(new String(body, StandardCharsets.UTF_8))
+                .isEqualTo("[1]");
+        for(Future<byte[]> follower : followers) {
+            Assertions.assertThat(follower.get(10, TimeUnit.SECONDS))
+                    .isSameAs(body);
+        }
+        Assertions.assertThat(computations)
+                .hasValue(1);
+    }
+
+    @Test
+    void finishedComputationIsNotReused() {
+        singleFlight.write("v1", computations::incrementAndGet);
+        byte[] body = singleFlight.write("v1", computations::incrementAndGet);
+
+        Assertions.assertThat(new String(body, StandardCharsets.UTF_8))
+                .isEqualTo("2");
+    }
+
+    @Test
+    void failureIsRethrownAndForgotten() {
+        IllegalStateException exception = new IllegalStateException("failed");
+
+        Assertions.assertThatThrownBy(() -> singleFlight.write("v1", () -> {
+                    throw exception;
+                }))
+                .isSameAs(exception);
+        Assertions.assertThat(new String(singleFlight.write("v1", () -> "ok"), StandardCharsets.UTF_8))
+                .isEqualTo("\"ok\"");
+    }
+
+    @Test
+    void errorReleasesWaitingCallers() throws Exception {
+        AssertionError error = new AssertionError("failed");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<byte[]> leader = executor.submit(() -> singleFlight.write("v1", () -> {
+            started.countDown();
+            await(release);
+            throw error;
+        }));
+        started.await(10, TimeUnit.SECONDS);
+        Future<byte[]> follower = executor.submit(() -> singleFlight.write("v1", () -> "follower"));
+        Thread.sleep(100);
+        release.countDown();
+
+        Assertions.assertThatThrownBy(() -> leader.get(10, TimeUnit.SECONDS))
+                .hasCause(error);
+        Assertions.assertThatThrownBy(() -> follower.get(10, TimeUnit.SECONDS))
+                .hasCause(error);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
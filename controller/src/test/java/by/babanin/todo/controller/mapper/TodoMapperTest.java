@@ -0,0 +1,97 @@
+package by.babanin.todo.controller.mapper;
+
+import java.time.LocalDate;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import by.babanin.todo.controller.dto.PriorityInfo;
+import by.babanin.todo.controller.dto.TodoInfo;
+import by.babanin.todo.controller.repository.TodoRow;
+import by.babanin.todo.model.Priority;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+
+class TodoMapperTest {
+
+    private final Priority priority = Priority.builder()
+            .id(3L)
+            .name("name")
+            .position(2)
+            .build();
+
+    private final TodoMapper todoMapper = new TodoMapper(new PriorityMapper());
+
+    @Test
+    void toTodoInfo() {
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .description("description")
+                .status(Status.OPEN)
+                .priority(priority)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .position(5)
+                .build();
+        PriorityInfo expectedPriorityInfo = new PriorityInfo();
+        expectedPriorityInfo.setId(priority.getId());
+        expectedPriorityInfo.setName(priority.getName());
+        expectedPriorityInfo.setPosition(priority.getPosition());
+        TodoInfo expectedTodoInfo = new TodoInfo();
+        expectedTodoInfo.setId(todo.getId());
+        expectedTodoInfo.setTitle(todo.getTitle());
+        expectedTodoInfo.setDescription(todo.getDescription());
+        expectedTodoInfo.setPriority(expectedPriorityInfo);
+        expectedTodoInfo.setStatus(todo.getStatus());
+        expectedTodoInfo.setCreationDate(todo.getCreationDate());
+        expectedTodoInfo.setPlannedDate(todo.getPlannedDate());
+        expectedTodoInfo.setPosition(todo.getPosition());
+
+        Assertions.assertThat(todoMapper.toTodoInfo(todo))
+                .isEqualTo(expectedTodoInfo);
+    }
+
+    @Test
+    void toTodoInfoWithoutPriority() {
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .status(Status.OPEN)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .build();
+
+        Assertions.assertThat(todoMapper.toTodoInfo(todo).getPriority())
+                .isNull();
+    }
+
+    @Test
+    void toTodoInfoFromRow() {
+        TodoRow row = new TodoRow(1L, "title", "description", Status.OPEN, LocalDate.now(), LocalDate.now().plusDays(1), null, 5L,
+                priority.getId(), priority.getName(), priority.getPosition());
+        Todo todo = Todo.builder()
+                .id(row.id())
+                .title(row.title())
+                .description(row.description())
+                .status(row.status())
+                .priority(priority)
+                .creationDate(row.creationDate())
+                .plannedDate(row.plannedDate())
+                .position(row.position())
+                .build();
+
+        Assertions.assertThat(todoMapper.toTodoInfo(row))
+                .isEqualTo(todoMapper.toTodoInfo(todo));
+    }
+
+    @Test
+    void toTodoInfoFromRowWithoutPriority() {
+        TodoRow row = new TodoRow(1L, "title", null, Status.OPEN, LocalDate.now(), LocalDate.now().plusDays(1), null, 5L,
+                null, null, null);
+
+        Assertions.assertThat(todoMapper.toTodoInfo(row).getPriority())
+                .isNull();
+    }
+
+}
@@ -0,0 +1,41 @@
+package by.babanin.todo.controller.metrics;
+
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MappingTimerTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void timesListOnce() {
+        MappingTimer mappingTimer = new MappingTimer(meterRegistry, true);
+
+        Assertions.assertThat(mappingTimer.map(MappingTimerTest.class, "all", List.of(1, 2, 3), String::valueOf))
+                .containsExactly("1", "2", "3");
+
+        Timer timer = meterRegistry.get(PhaseTimingPostProcessor.METRIC_NAME)
+                .tag("phase", MappingTimer.MAPPING)
+                .tag("component", MappingTimerTest.class.getSimpleName())
+                .tag("method", "all")
+                .timer();
+        Assertions.assertThat(timer.count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void disabled() {
+        MappingTimer mappingTimer = new MappingTimer(meterRegistry, false);
+
+        Assertions.assertThat(mappingTimer.record(MappingTimerTest.class, "all", () -> "mapped"))
+                .isEqualTo("mapped");
+        Assertions.assertThat(meterRegistry.getMeters())
+                .isEmpty();
+    }
+}
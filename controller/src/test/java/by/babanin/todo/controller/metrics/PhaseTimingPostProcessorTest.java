@@ -0,0 +1,82 @@
+package by.babanin.todo.controller.metrics;
+
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.stereotype.Service;
+
+import by.babanin.todo.controller.mapper.PriorityMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PhaseTimingPostProcessorTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PhaseTimingPostProcessor postProcessor = createPostProcessor();
+
+    @Test
+    void timesService() {
+        NameService nameService = (NameService) postProcessor.postProcessAfterInitialization(new NameService(), "nameService");
+
+        Assertions.assertThat(nameService.name())
+                .isEqualTo("name");
+        nameService.name();
+
+        Timer timer = meterRegistry.get(PhaseTimingPostProcessor.METRIC_NAME)
+                .tag("phase", PhaseTimingPostProcessor.SERVICE)
+                .tag("component", NameService.class.getSimpleName())
+                .tag("method", "name")
+                .timer();
+        Assertions.assertThat(timer.count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void skipsStreams() {
+        NameService nameService = (NameService) postProcessor.postProcessAfterInitialization(new NameService(), "nameService");
+
+        Assertions.assertThat(nameService.names())
+                .containsExactly("name");
+        Assertions.assertThat(meterRegistry.getMeters())
+                .isEmpty();
+    }
+
+    @Test
+    void skipsMappers() {
+        PriorityMapper priorityMapper = new PriorityMapper();
+
+        Assertions.assertThat(postProcessor.postProcessAfterInitialization(priorityMapper, "priorityMapper"))
+                .isSameAs(priorityMapper);
+    }
+
+    @Test
+    void skipsOtherBeans() {
+        Object bean = new Object();
+
+        Assertions.assertThat(postProcessor.postProcessAfterInitialization(bean, "bean"))
+                .isSameAs(bean);
+        Assertions.assertThat(meterRegistry.getMeters())
+                .isEmpty();
+    }
+
+    private PhaseTimingPostProcessor createPostProcessor() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+        return new PhaseTimingPostProcessor(beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    @Service
+    static class NameService {
+
+        public String name() {
+            return "name";
+        }
+
+        public Stream<String> names() {
+            return Stream.of(name());
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package by.babanin.todo.controller.repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import by.babanin.todo.controller.repository.PositionRepository.Allocation;
+import by.babanin.todo.model.Priority;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Runs the rank statements of {@link PositionRepositoryImpl} against H2, including the negative intermediate values.
+ */
+@DataJpaTest
+class PositionRepositoryTest {
+
+    private static final long GAP = PositionRepository.GAP;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TodoApiRepository todoApiRepository;
+
+    @Autowired
+    private PriorityApiRepository priorityApiRepository;
+
+    @Test
+    void allocateRankTakesMidpoint() {
+        persistTodos(0, GAP, 2 * GAP);
+
+        Assertions.assertThat(todoApiRepository.allocateRank(Todo.class, 1L))
+                .isEqualTo(new Allocation(GAP / 2, false));
+        Assertions.assertThat(todoApiRepository.allocateRank(Todo.class, 2L))
+                .isEqualTo(new Allocation(GAP + GAP / 2, false));
+    }
+
+    @Test
+    void allocateRankAppends() {
+        persistTodos(0, GAP);
+
+        Assertions.assertThat(todoApiRepository.allocateRank(Todo.class, null))
+                .isEqualTo(new Allocation(2 * GAP, true));
+        Assertions.assertThat(todoApiRepository.allocateRank(Todo.class, 5L))
+                .isEqualTo(new Allocation(2 * GAP, true));
+    }
+
+    @Test
+    void allocateAppend() {
+        Assertions.assertThat(todoApiRepository.allocateAppend(Todo.class))
+                .isZero();
+
+        persistTodos(0, 3);
+
+        Assertions.assertThat(todoApiRepository.allocateAppend(Todo.class))
+                .isEqualTo(3 + GAP);
+    }
+
+    @Test
+    void allocateRankInEmptyTable() {
+        Assertions.assertThat(todoApiRepository.allocateRank(Todo.class, 3L))
+                .isEqualTo(new Allocation(0, true));
+    }
+
+    @Test
+    void allocateRankMarksCrowdedGap() {
+        persistTodos(0, PositionRepository.CROWDED_GAP - 1, GAP);
+
+        Assertions.assertThat(todoApiRepository.allocateRank(Todo.class, 1L))
+                .isEqualTo(new Allocation((PositionRepository.CROWDED_GAP - 1) / 2, false, true));
+        Assertions.assertThat(todoApiRepository.allocateRank(Todo.class, 2L).crowded())
+                .isFalse();
+    }
+
+    @Test
+    void allocateRankRebalancesAdjacentRanks() {
+        persistTodos(0, 1, 2);
+
+        Allocation allocation = todoApiRepository.allocateRank(Todo.class, 1L);
+        persistTodo("new", allocation.rank());
+
+        Assertions.assertThat(allocation)
+                .isEqualTo(new Allocation(1 + GAP / 2, false));
+        Assertions.assertThat(findRanks())
+                .containsExactly(0L, 1 + GAP / 2, 1 + GAP, 2 + GAP);
+        Assertions.assertThat(findTitles())
+                .containsExactly("title0", "new", "title1", "title2");
+    }
+
+    @Test
+    void findAtAndIndexesOf() {
+        List<Long> ids = persistTodos(GAP, 3 * GAP, 4 * GAP);
+
+        Assertions.assertThat(todoApiRepository.findRankAt(Todo.class, 1))
+                .contains(3 * GAP);
+        Assertions.assertThat(todoApiRepository.findIdAt(Todo.class, 2))
+                .contains(ids.get(2));
+        Assertions.assertThat(todoApiRepository.findRankAt(Todo.class, 3))
+                .isEmpty();
+        Assertions.assertThat(todoApiRepository.findIndexesOf(Todo.class, List.of(4 * GAP, GAP)))
+                .isEqualTo(Map.of(GAP, 0L, 4 * GAP, 2L));
+    }
+
+    @Test
+    void swap() {
+        List<Long> ids = persistTodos(0, GAP, 2 * GAP);
+
+        Assertions.assertThat(todoApiRepository.swap(Todo.class, 2, 0))
+                .containsExactly(ids.get(2), ids.get(0));
+        Assertions.assertThat(findRanks())
+                .containsExactly(0L, GAP, 2 * GAP);
+        Assertions.assertThat(findTitles())
+                .containsExactly("title2", "title1", "title0");
+    }
+
+    @Test
+    void swapWritesThroughEntities() {
+        List<Long> ids = persistTodos(0, GAP, 2 * GAP);
+        EntityManager em = entityManager.getEntityManager();
+        Todo first = em.find(Todo.class, ids.get(0));
+        Todo untouched = em.find(Todo.class, ids.get(1));
+
+        Assertions.assertThat(todoApiRepository.swap(Todo.class, 0, 2))
+                .containsExactly(ids.get(0), ids.get(2));
+
+        Assertions.assertThat(em.contains(untouched))
+                .isTrue();
+        Assertions.assertThat(first.getPosition())
+                .isEqualTo(2 * GAP);
+        em.flush();
+        em.clear();
+        Assertions.assertThat(findRanks())
+                .containsExactly(0L, GAP, 2 * GAP);
+        Assertions.assertThat(findTitles())
+                .containsExactly("title2", "title1", "title0");
+    }
+
+    @Test
+    void swapPastEnd() {
+        persistTodos(0, GAP);
+
+        Assertions.assertThat(todoApiRepository.swap(Todo.class, 0, 2))
+                .isEmpty();
+        Assertions.assertThat(findTitles())
+                .containsExactly("title0", "title1");
+    }
+
+    @Test
+    void rebalance() {
+        persistTodos(0, 1, 2, GAP);
+
+        Assertions.assertThat(todoApiRepository.rebalance(Todo.class))
+                .isEqualTo(4);
+        Assertions.assertThat(findRanks())
+                .containsExactly(0L, GAP, 2 * GAP, 3 * GAP);
+        Assertions.assertThat(findTitles())
+                .containsExactly("title0", "title1", "title2", "title3");
+    }
+
+    @Test
+    void reorderRunsInChunks() {
+        long[] ranks = new long[1200];
+        for(int i = 0; i < ranks.length; i++) {
+            ranks[i] = i;
+        }
+        List<Long> ids = new ArrayList<>(persistTodos(ranks));
+        Collections.reverse(ids);
+
+        Assertions.assertThat(todoApiRepository.reorder(Todo.class, ids, GAP))
+                .isEqualTo(ids.size());
+        List<Long> orderedIds = entityManager.getEntityManager()
+                .createQuery("select t.id from Todo t order by t.position", Long.class)
+                .getResultList();
+        Assertions.assertThat(orderedIds)
+                .isEqualTo(ids);
+        Assertions.assertThat(findRanks())
+                .startsWith(0L, GAP, 2 * GAP)
+                .endsWith(1199 * GAP);
+    }
+
+    @Test
+    void moveDense() {
+        for(int i = 0; i < 5; i++) {
+            entityManager.persist(Priority.builder()
+                    .name("priority" + i)
+                    .position(i)
+                    .build());
+        }
+        entityManager.flush();
+
+        priorityApiRepository.moveDense(Priority.class, 1, 3);
+        Assertions.assertThat(findPriorityNames())
+                .containsExactly("priority0", "priority2", "priority3", "priority1", "priority4");
+
+        priorityApiRepository.moveDense(Priority.class, 4, 0);
+        Assertions.assertThat(findPriorityNames())
+                .containsExactly("priority4", "priority0", "priority2", "priority3", "priority1");
+
+        priorityApiRepository.moveDense(Priority.class, 0, 10);
+        Assertions.assertThat(findPriorityNames())
+                .containsExactly("priority0", "priority2", "priority3", "priority1", "priority4");
+        Assertions.assertThat(entityManager.getEntityManager()
+                        .createQuery("select p.position from Priority p order by p.position", Long.class)
+                        .getResultList())
+                .containsExactly(0L, 1L, 2L, 3L, 4L);
+    }
+
+    private List<Long> persistTodos(long... ranks) {
+        List<Long> ids = new ArrayList<>(ranks.length);
+        for(int i = 0; i < ranks.length; i++) {
+            ids.add(persistTodo("title" + i, ranks[i]));
+        }
+        return ids;
+    }
+
+    private Long persistTodo(String title, long rank) {
+        Todo todo = entityManager.persistFlushFind(Todo.builder()
+                .title(title)
+                .status(Status.OPEN)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .position(rank)
+                .build());
+        return todo.getId();
+    }
+
+    private List<Long> findRanks() {
+        return entityManager.getEntityManager()
+                .createQuery("select t.position from Todo t order by t.position", Long.class)
+                .getResultList();
+    }
+
+    private List<String> findTitles() {
+        return entityManager.getEntityManager()
+                .createQuery("select t.title from Todo t order by t.position", String.class)
+                .getResultList();
+    }
+
+    private List<String> findPriorityNames() {
+        return entityManager.getEntityManager()
+                .createQuery("select p.name from Priority p order by p.position", String.class)
+                .getResultList();
+    }
+}
@@ -0,0 +1,207 @@
+package by.babanin.todo.controller.repository;
+
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import by.babanin.todo.model.Priority;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Runs with the cache settings of {@code api.properties}. Every step commits, because the read-write cache
+ * only publishes changes of committed transactions.
+ */
+@DataJpaTest
+@TestPropertySource(locations = "classpath:api.properties", properties = "api.metrics.hibernate.enabled=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PriorityApiRepository priorityApiRepository;
+
+    @Autowired
+    private TodoApiRepository todoApiRepository;
+
+    private TransactionTemplate transactionTemplate;
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("delete from Todo").executeUpdate();
+            entityManager.createQuery("delete from Priority").executeUpdate();
+        });
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    @Test
+    void priorityIsReadFromCache() {
+        Priority priority = persistPriority("priority");
+        sessionFactory.getCache().evictAllRegions();
+
+        Assertions.assertThat(countStatements(() -> priorityApiRepository.findById(priority.getId())))
+                .isPositive();
+        Assertions.assertThat(countStatements(() -> priorityApiRepository.findById(priority.getId())))
+                .isZero();
+        Assertions.assertThat(statistics.getDomainDataRegionStatistics("priority").getHitCount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void todoIsReadFromCache() {
+        Todo todo = persistTodo(persistPriority("priority"));
+        sessionFactory.getCache().evictAllRegions();
+
+        Assertions.assertThat(countStatements(() -> entityManager.find(Todo.class, todo.getId())))
+                .isPositive();
+        Assertions.assertThat(countStatements(() -> entityManager.find(Todo.class, todo.getId())))
+                .isZero();
+        Assertions.assertThat(statistics.getDomainDataRegionStatistics("todo").getHitCount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void allRowsAreReadFromQueryCacheUntilTodoChanges() {
+        Priority priority = persistPriority("priority");
+        persistTodo(priority);
+
+        Assertions.assertThat(countStatements(todoApiRepository::findAllRows))
+                .isPositive();
+        Assertions.assertThat(countStatements(todoApiRepository::findAllRows))
+                .isZero();
+        Assertions.assertThat(statistics.getQueryCacheHitCount())
+                .isEqualTo(1);
+
+        persistTodo(priority);
+
+        Assertions.assertThat(countStatements(todoApiRepository::findAllRows))
+                .isPositive();
+        Assertions.assertThat(todoApiRepository.findAllRows())
+                .hasSize(2);
+    }
+
+    @Test
+    void bulkUpdateEvictsCachedTodo() {
+        Priority priority = persistPriority("priority");
+        Todo todo = persistTodo(priority);
+        transactionTemplate.executeWithoutResult(status -> entityManager.find(Todo.class, todo.getId()));
+
+        transactionTemplate.executeWithoutResult(status -> entityManager.createQuery("update Todo t set t.title = 'renamed'")
+                .executeUpdate());
+
+        Todo reloaded = transactionTemplate.execute(status -> entityManager.find(Todo.class, todo.getId()));
+        Assertions.assertThat(reloaded.getTitle())
+                .isEqualTo("renamed");
+    }
+
+    @Test
+    void entityUpdateEvictsOnlyItsTodo() {
+        Priority priority = persistPriority("priority");
+        Todo todo = persistTodo(priority);
+        Todo other = persistTodo(priority);
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.find(Todo.class, todo.getId());
+            entityManager.find(Todo.class, other.getId());
+        });
+
+        transactionTemplate.executeWithoutResult(status -> entityManager.find(Todo.class, todo.getId()).setTitle("renamed"));
+
+        Assertions.assertThat(countStatements(() -> entityManager.find(Todo.class, other.getId())))
+                .isZero();
+        Todo reloaded = transactionTemplate.execute(status -> entityManager.find(Todo.class, todo.getId()));
+        Assertions.assertThat(reloaded.getTitle())
+                .isEqualTo("renamed");
+    }
+
+    @Test
+    void swapEvictsOnlySwappedTodos() {
+        Priority priority = persistPriority("priority");
+        Todo first = persistTodo(priority);
+        Todo second = persistTodo(priority);
+        Todo other = persistTodo(priority);
+        transactionTemplate.executeWithoutResult(status -> entityManager.find(Todo.class, other.getId()));
+
+        transactionTemplate.executeWithoutResult(status -> todoApiRepository.swap(Todo.class, 0, 1));
+
+        Assertions.assertThat(countStatements(() -> entityManager.find(Todo.class, other.getId())))
+                .isZero();
+        Assertions.assertThat(transactionTemplate.execute(status -> entityManager.find(Todo.class, first.getId())).getPosition())
+                .isEqualTo(second.getPosition());
+    }
+
+    @Test
+    void entityUpdateWritesOnlyChangedColumns() {
+        Todo todo = persistTodo(persistPriority("priority"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Todo managed = entityManager.find(Todo.class, todo.getId());
+            // Stands for a concurrent move committed after the todo was read
+            entityManager.createNativeQuery("update todo set position = 99").executeUpdate();
+            managed.setTitle("renamed");
+        });
+
+        Todo reloaded = transactionTemplate.execute(status -> entityManager.find(Todo.class, todo.getId()));
+        Assertions.assertThat(reloaded.getTitle())
+                .isEqualTo("renamed");
+        Assertions.assertThat(reloaded.getPosition())
+                .isEqualTo(99);
+    }
+
+    /**
+     * Runs the action in its own transaction with a fresh persistence context,
+     * so only the second-level cache can save a statement.
+     */
+    private long countStatements(Supplier<?> action) {
+        statistics.clear();
+        transactionTemplate.execute(status -> action.get());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Priority persistPriority(String name) {
+        return transactionTemplate.execute(status -> priorityApiRepository.save(Priority.builder()
+                .name(name)
+                .position(0)
+                .build()));
+    }
+
+    private Todo persistTodo(Priority priority) {
+        long position = todoApiRepository.count();
+        return transactionTemplate.execute(status -> todoApiRepository.save(Todo.builder()
+                .title("title" + position)
+                .status(Status.OPEN)
+                .priority(priority)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .position(position)
+                .build()));
+    }
+}
@@ -0,0 +1,155 @@
+package by.babanin.todo.controller.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
+
+import by.babanin.todo.controller.mapper.PriorityMapper;
+import by.babanin.todo.controller.mapper.TodoMapper;
+import by.babanin.todo.model.Priority;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+
+/**
+ * Every todo carries a priority, so a lazily loaded association would cost one extra statement per row.
+ * The number of statements issued to list and map todos must not depend on how many there are.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TodoApiRepositoryTest {
+
+    private final TodoMapper todoMapper = new TodoMapper(new PriorityMapper());
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TodoApiRepository todoApiRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+
+    @Test
+    void findRowsIssuesConstantStatementCount() {
+        assertConstantStatementCount(() -> todoApiRepository.findRows(PageRequest.of(0, 5, Direction.ASC, Todo.Fields.position))
+                .map(todoMapper::toTodoInfo)
+                .getContent());
+    }
+
+    @Test
+    void findAllRowsIssuesConstantStatementCount() {
+        assertConstantStatementCount(() -> todoApiRepository.findAllRows().stream()
+                .map(todoMapper::toTodoInfo)
+                .toList());
+    }
+
+    @Test
+    void findRowsByIdIssuesConstantStatementCount() {
+        assertConstantStatementCount(() -> todoApiRepository.findRowsById(allIds()).stream()
+                .map(todoMapper::toTodoInfo)
+                .toList());
+    }
+
+    @Test
+    void findRowsByPositionGreaterThanIssuesConstantStatementCount() {
+        assertConstantStatementCount(() -> todoApiRepository.findRowsByPositionGreaterThan(-1, PageRequest.of(0, 1000)).stream()
+                .map(todoMapper::toTodoInfo)
+                .toList());
+    }
+
+    @Test
+    void findAllWithPriorityByIdIssuesConstantStatementCount() {
+        assertConstantStatementCount(() -> todoApiRepository.findAllWithPriorityById(allIds()).stream()
+                .map(todoMapper::toTodoInfo)
+                .toList());
+    }
+
+    @Test
+    void streamAllByOrderByPositionIssuesConstantStatementCount() {
+        assertConstantStatementCount(() -> {
+            try(Stream<Todo> todos = todoApiRepository.streamAllByOrderByPosition()) {
+                return todos.map(todoMapper::toTodoInfo)
+                        .toList();
+            }
+        });
+    }
+
+    @Test
+    void findRowsMapsPriority() {
+        persist(1);
+
+        Assertions.assertThat(todoApiRepository.findAllRows())
+                .singleElement()
+                .satisfies(row -> {
+                    Assertions.assertThat(row.priorityId()).isNotNull();
+                    Assertions.assertThat(row.priorityName()).isEqualTo("priority0");
+                });
+    }
+
+    private void assertConstantStatementCount(Supplier<List<?>> listing) {
+        persist(10);
+        long fewRowsStatements = countStatements(listing);
+
+        persist(90);
+        long manyRowsStatements = countStatements(listing);
+
+        Assertions.assertThat(manyRowsStatements)
+                .isEqualTo(fewRowsStatements);
+    }
+
+    private long countStatements(Supplier<List<?>> listing) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        Assertions.assertThat(listing.get()).isNotEmpty();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Long> allIds() {
+        return entityManager.getEntityManager()
+                .createQuery("select t.id from Todo t", Long.class)
+                .getResultList();
+    }
+
+    /**
+     * Every todo gets its own priority, so no priority can be served from the persistence context of another row.
+     */
+    private void persist(int count) {
+        long offset = entityManager.getEntityManager()
+                .createQuery("select count(t) from Todo t", Long.class)
+                .getSingleResult();
+        for(long i = offset; i < offset + count; i++) {
+            Priority priority = entityManager.persist(Priority.builder()
+                    .name("priority" + i)
+                    .position(i)
+                    .build());
+            entityManager.persist(Todo.builder()
+                    .title("title" + i)
+                    .status(Status.OPEN)
+                    .priority(priority)
+                    .creationDate(LocalDate.now())
+                    .plannedDate(LocalDate.now().plusDays(1))
+                    .position(i)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package by.babanin.todo.controller.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import by.babanin.todo.application.service.PriorityService;
+import by.babanin.todo.application.service.TodoService;
+import by.babanin.todo.controller.cache.PriorityCache;
+import by.babanin.todo.controller.dto.TodoToCreate;
+import by.babanin.todo.controller.dto.TodoToUpdate;
+import by.babanin.todo.controller.repository.PositionRepository;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.model.Priority;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+import jakarta.validation.ValidationException;
+
+class TodoBatchServiceTest {
+
+    private final PriorityService priorityService = Mockito.mock(PriorityService.class);
+    private final TodoService todoService = Mockito.mock(TodoService.class);
+    private final TodoApiRepository todoApiRepository = Mockito.mock(TodoApiRepository.class);
+    private final PriorityCache priorityCache = new PriorityCache(priorityService, 16, Duration.ofMinutes(1));
+    private final TodoBatchService todoBatchService = new TodoBatchService(priorityCache, todoService, todoApiRepository);
+
+    @Test
+    void create() {
+        Priority priority = Priority.builder()
+                .id(1L)
+                .name("name")
+                .build();
+        Mockito.when(priorityService.getAllById(Set.of(priority.getId())))
+                .thenReturn(List.of(priority));
+        Mockito.when(todoApiRepository.allocateAppend(Todo.class))
+                .thenReturn(4L);
+        Mockito.when(todoApiRepository.saveAll(ArgumentMatchers.<List<Todo>>any()))
+                .then(invocation -> invocation.getArgument(0));
+
+        List<Todo> todos = todoBatchService.create(List.of(
+                todoToCreate("title1", priority.getId()),
+                todoToCreate("title2", null),
+                todoToCreate("title3", priority.getId())));
+
+        Assertions.assertThat(todos)
+                .extracting(Todo::getTitle, Todo::getPosition, Todo::getPriority, Todo::getStatus)
+                .containsExactly(
+                        Assertions.tuple("title1", 4L, priority, Status.OPEN),
+                        Assertions.tuple("title2", 4 + PositionRepository.GAP, null, Status.OPEN),
+                        Assertions.tuple("title3", 4 + 2 * PositionRepository.GAP, priority, Status.OPEN));
+        Mockito.verify(priorityService, Mockito.times(1))
+                .getAllById(Set.of(priority.getId()));
+        Mockito.verify(todoApiRepository, Mockito.times(1))
+                .saveAll(ArgumentMatchers.<List<Todo>>any());
+    }
+
+    @Test
+    void createInEmptyList() {
+        Mockito.when(todoApiRepository.saveAll(ArgumentMatchers.<List<Todo>>any()))
+                .then(invocation -> invocation.getArgument(0));
+
+        List<Todo> todos = todoBatchService.create(List.of(todoToCreate("title", null)));
+
+        Assertions.assertThat(todos.get(0).getPosition())
+                .isZero();
+        Mockito.verifyNoInteractions(priorityService);
+    }
+
+    @Test
+    void createWithUnknownPriority() {
+        Mockito.when(priorityService.getAllById(Set.of(1L)))
+                .thenReturn(List.of());
+        List<TodoToCreate> todosToCreate = List.of(todoToCreate("title", 1L));
+
+        Assertions.assertThatThrownBy(() -> todoBatchService.create(todosToCreate))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Priorities with IDs [1] don't exist.");
+        Mockito.verify(todoApiRepository, Mockito.never())
+                .saveAll(ArgumentMatchers.<List<Todo>>any());
+    }
+
+    @Test
+    void createWithPosition() {
+        TodoToCreate todoToCreate = todoToCreate("title", null);
+        todoToCreate.setPosition(0L);
+        List<TodoToCreate> todosToCreate = List.of(todoToCreate("first", null), todoToCreate);
+
+        Assertions.assertThatThrownBy(() -> todoBatchService.create(todosToCreate))
+                .isInstanceOf(ValidationException.class);
+        Mockito.verifyNoInteractions(todoApiRepository);
+    }
+
+    @Test
+    void update() {
+        Priority priority = Priority.builder()
+                .id(1L)
+                .name("name")
+                .build();
+        Todo first = todo(1L, null);
+        Todo second = todo(2L, priority);
+        Map<Long, TodoToUpdate> todosToUpdate = new LinkedHashMap<>();
+        todosToUpdate.put(first.getId(), todoToUpdate("new1", priority.getId(), Status.IN_PROGRESS));
+        todosToUpdate.put(second.getId(), todoToUpdate("new2", null, Status.OPEN));
+        Mockito.when(todoApiRepository.findAllWithPriorityById(todosToUpdate.keySet()))
+                .thenReturn(List.of(first, second));
+        Mockito.when(priorityService.getAllById(Set.of(priority.getId())))
+                .thenReturn(List.of(priority));
+        Mockito.when(todoService.save(ArgumentMatchers.any()))
+                .then(invocation -> invocation.getArgument(0));
+
+        List<Todo> todos = todoBatchService.update(todosToUpdate);
+
+        Assertions.assertThat(todos)
+                .extracting(Todo::getId, Todo::getTitle, Todo::getPriority, Todo::getStatus, Todo::getPosition)
+                .containsExactly(
+                        Assertions.tuple(1L, "new1", priority, Status.IN_PROGRESS, 1L),
+                        Assertions.tuple(2L, "new2", null, Status.OPEN, 2L));
+        Mockito.verify(todoApiRepository, Mockito.times(1))
+                .findAllWithPriorityById(todosToUpdate.keySet());
+        Mockito.verify(priorityService, Mockito.times(1))
+                .getAllById(Set.of(priority.getId()));
+        Mockito.verify(todoService, Mockito.times(2))
+                .save(ArgumentMatchers.any());
+    }
+
+    @Test
+    void updateKeepsRequestOrder() {
+        Map<Long, TodoToUpdate> todosToUpdate = new LinkedHashMap<>();
+        todosToUpdate.put(2L, todoToUpdate("new2", null, Status.OPEN));
+        todosToUpdate.put(1L, todoToUpdate("new1", null, Status.OPEN));
+        Mockito.when(todoApiRepository.findAllWithPriorityById(todosToUpdate.keySet()))
+                .thenReturn(List.of(todo(1L, null), todo(2L, null)));
+        Mockito.when(todoService.save(ArgumentMatchers.any()))
+                .then(invocation -> invocation.getArgument(0));
+
+        Assertions.assertThat(todoBatchService.update(todosToUpdate))
+                .extracting(Todo::getId)
+                .containsExactly(2L, 1L);
+    }
+
+    @Test
+    void updateWithUnknownTodo() {
+        Map<Long, TodoToUpdate> todosToUpdate = Map.of(
+                1L, todoToUpdate("new1", null, Status.OPEN),
+                2L, todoToUpdate("new2", null, Status.OPEN));
+        Mockito.when(todoApiRepository.findAllWithPriorityById(todosToUpdate.keySet()))
+                .thenReturn(List.of(todo(1L, null)));
+
+        Assertions.assertThatThrownBy(() -> todoBatchService.update(todosToUpdate))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Todos with IDs [2] don't exist.");
+        Mockito.verifyNoInteractions(todoService);
+    }
+
+    private static Todo todo(Long id, Priority priority) {
+        return Todo.builder()
+                .id(id)
+                .title("title" + id)
+                .status(Status.OPEN)
+                .priority(priority)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .position(id)
+                .build();
+    }
+
+    private static TodoToUpdate todoToUpdate(String title, Long priorityId, Status status) {
+        TodoToUpdate todoToUpdate = new TodoToUpdate();
+        todoToUpdate.setTitle(title);
+        todoToUpdate.setPriorityId(priorityId);
+        todoToUpdate.setStatus(status);
+        return todoToUpdate;
+    }
+
+    private static TodoToCreate todoToCreate(String title, Long priorityId) {
+        TodoToCreate todoToCreate = new TodoToCreate();
+        todoToCreate.setTitle(title);
+        todoToCreate.setPriorityId(priorityId);
+        todoToCreate.setPlannedDate(LocalDate.now().plusDays(1));
+        return todoToCreate;
+    }
+}
@@ -0,0 +1,72 @@
+package by.babanin.todo.controller.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.model.Todo;
+
+class TodoRebalanceServiceTest {
+
+    private final TodoApiRepository todoApiRepository = Mockito.mock(TodoApiRepository.class);
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final TodoRebalanceService todoRebalanceService = new TodoRebalanceService(todoApiRepository,
+            Mockito.mock(PlatformTransactionManager.class), tasks::add);
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void rebalancesAfterCommit() {
+        todoRebalanceService.rebalanceAfterCommit();
+
+        Assertions.assertThat(tasks)
+                .isEmpty();
+
+        commit();
+        tasks.forEach(Runnable::run);
+
+        Mockito.verify(todoApiRepository, Mockito.times(1))
+                .rebalance(Todo.class);
+    }
+
+    @Test
+    void mergesRequestsWhilePending() {
+        todoRebalanceService.rebalanceAfterCommit();
+        todoRebalanceService.rebalanceAfterCommit();
+        commit();
+
+        Assertions.assertThat(tasks)
+                .hasSize(1);
+
+        tasks.remove(0).run();
+        todoRebalanceService.rebalanceAfterCommit();
+        commit();
+
+        Assertions.assertThat(tasks)
+                .hasSize(1);
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+}
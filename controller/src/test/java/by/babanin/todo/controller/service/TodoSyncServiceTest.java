@@ -0,0 +1,95 @@
+package by.babanin.todo.controller.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import by.babanin.todo.controller.repository.PositionRepository;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.controller.sync.TodoChangeLog;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+
+class TodoSyncServiceTest {
+
+    private final TodoChangeLog todoChangeLog = new TodoChangeLog(16);
+    private final TodoApiRepository todoApiRepository = Mockito.mock(TodoApiRepository.class);
+    private final TodoSyncService todoSyncService = new TodoSyncService(todoChangeLog, todoApiRepository);
+
+    @Test
+    void changesSinceWithoutToken() {
+        List<Todo> todos = List.of(todo(1L, 0), todo(2L, 1));
+        Mockito.when(todoApiRepository.findAllWithPriorityByOrderByPosition())
+                .thenReturn(todos);
+
+        TodoSyncService.Changes changes = todoSyncService.changesSince(null);
+
+        Assertions.assertThat(changes.reset()).isTrue();
+        Assertions.assertThat(changes.upserts()).isEqualTo(todos);
+        Assertions.assertThat(changes.deletes()).isEmpty();
+    }
+
+    @Test
+    void changesSince() {
+        String token = todoChangeLog.token();
+        todoChangeLog.upserted(List.of(1L));
+        todoChangeLog.deleted(List.of(2L));
+        todoChangeLog.shifted(3);
+        Todo changed = todo(1L, 0);
+        Todo shifted = todo(3L, 5 * PositionRepository.GAP);
+        Mockito.when(todoApiRepository.findRankAt(Todo.class, 3))
+                .thenReturn(Optional.of(5 * PositionRepository.GAP));
+        Mockito.when(todoApiRepository.findAllWithPriorityByPositionGreaterThanEqual(5 * PositionRepository.GAP))
+                .thenReturn(List.of(shifted));
+        Mockito.when(todoApiRepository.findAllWithPriorityById(Set.of(1L)))
+                .thenReturn(List.of(changed));
+
+        TodoSyncService.Changes changes = todoSyncService.changesSince(token);
+
+        Assertions.assertThat(changes.reset()).isFalse();
+        Assertions.assertThat(changes.upserts()).containsExactlyInAnyOrder(changed, shifted);
+        Assertions.assertThat(changes.deletes()).containsExactly(2L);
+        Assertions.assertThat(changes.token()).isEqualTo(todoChangeLog.token());
+        Mockito.verify(todoApiRepository, Mockito.never())
+                .findAllWithPriorityByOrderByPosition();
+    }
+
+    @Test
+    void changesSinceShiftedPastEnd() {
+        String token = todoChangeLog.token();
+        todoChangeLog.shifted(3);
+        Mockito.when(todoApiRepository.findRankAt(Todo.class, 3))
+                .thenReturn(Optional.empty());
+
+        TodoSyncService.Changes changes = todoSyncService.changesSince(token);
+
+        Assertions.assertThat(changes.upserts()).isEmpty();
+        Mockito.verify(todoApiRepository, Mockito.never())
+                .findAllWithPriorityByPositionGreaterThanEqual(Mockito.anyLong());
+    }
+
+    @Test
+    void changesSinceWithoutChanges() {
+        TodoSyncService.Changes changes = todoSyncService.changesSince(todoChangeLog.token());
+
+        Assertions.assertThat(changes.reset()).isFalse();
+        Assertions.assertThat(changes.upserts()).isEmpty();
+        Assertions.assertThat(changes.deletes()).isEmpty();
+        Mockito.verifyNoInteractions(todoApiRepository);
+    }
+
+    private static Todo todo(Long id, long position) {
+        return Todo.builder()
+                .id(id)
+                .title("title" + id)
+                .status(Status.OPEN)
+                .creationDate(LocalDate.now())
+                .position(position)
+                .build();
+    }
+}
@@ -0,0 +1,431 @@
+package by.babanin.todo.controller.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import by.babanin.todo.application.service.TodoService;
+import by.babanin.todo.controller.cache.PriorityCache;
+import by.babanin.todo.controller.dto.TodoPatch;
+import by.babanin.todo.controller.dto.TodoToCreate;
+import by.babanin.todo.controller.dto.TodoToUpdate;
+import by.babanin.todo.controller.repository.PositionRepository;
+import by.babanin.todo.controller.repository.PositionRepository.Allocation;
+import by.babanin.todo.controller.repository.TodoApiRepository;
+import by.babanin.todo.model.Priority;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+import jakarta.validation.ValidationException;
+
+class TodoWriteServiceTest {
+
+    private final TodoService todoService = Mockito.mock(TodoService.class);
+    private final TodoApiRepository todoApiRepository = Mockito.mock(TodoApiRepository.class);
+    private final PriorityCache priorityCache = Mockito.mock(PriorityCache.class);
+    private final TodoRebalanceService todoRebalanceService = Mockito.mock(TodoRebalanceService.class);
+    private final TodoWriteService todoWriteService = new TodoWriteService(todoService, todoApiRepository, priorityCache, todoRebalanceService);
+
+    @Test
+    void update() {
+        Priority priority = Priority.builder()
+                .id(2L)
+                .build();
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .status(Status.OPEN)
+                .creationDate(LocalDate.now())
+                .plannedDate(LocalDate.now().plusDays(1))
+                .position(PositionRepository.GAP)
+                .build();
+        TodoToUpdate todoToUpdate = new TodoToUpdate();
+        todoToUpdate.setTitle("new title");
+        todoToUpdate.setPriorityId(priority.getId());
+        todoToUpdate.setStatus(Status.CLOSED);
+        Mockito.when(todoApiRepository.findById(todo.getId()))
+                .thenReturn(Optional.of(todo));
+        Mockito.when(priorityCache.findById(priority.getId()))
+                .thenReturn(Optional.of(priority));
+        Mockito.when(todoService.save(ArgumentMatchers.any()))
+                .then(invocation -> invocation.getArgument(0));
+
+        Todo updated = todoWriteService.update(todo.getId(), todoToUpdate);
+
+        Assertions.assertThat(updated)
+                .extracting(Todo::getId, Todo::getTitle, Todo::getPriority, Todo::getStatus, Todo::getCreationDate,
+                        Todo::getPlannedDate, Todo::getPosition)
+                .containsExactly(todo.getId(), "new title", priority, Status.CLOSED, todo.getCreationDate(),
+                        todo.getPlannedDate(), PositionRepository.GAP);
+        Mockito.verify(todoService, Mockito.times(1))
+                .save(updated);
+    }
+
+    @Test
+    void updateWithoutPriority() {
+        TodoToUpdate todoToUpdate = new TodoToUpdate();
+        todoToUpdate.setTitle("title");
+        todoToUpdate.setStatus(Status.OPEN);
+        Mockito.when(todoApiRepository.findById(1L))
+                .thenReturn(Optional.of(Todo.builder().id(1L).build()));
+        Mockito.when(todoService.save(ArgumentMatchers.any()))
+                .then(invocation -> invocation.getArgument(0));
+
+        Assertions.assertThat(todoWriteService.update(1L, todoToUpdate).getPriority())
+                .isNull();
+        Mockito.verifyNoInteractions(priorityCache);
+    }
+
+    @Test
+    void updateUnknownTodo() {
+        TodoToUpdate todoToUpdate = new TodoToUpdate();
+        todoToUpdate.setTitle("title");
+        todoToUpdate.setStatus(Status.OPEN);
+        Mockito.when(todoApiRepository.findById(1L))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatThrownBy(() -> todoWriteService.update(1L, todoToUpdate))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Todo with ID 1 doesn't exist.");
+        Mockito.verifyNoInteractions(todoService);
+    }
+
+    @Test
+    void updateWithUnknownPriority() {
+        TodoToUpdate todoToUpdate = new TodoToUpdate();
+        todoToUpdate.setTitle("title");
+        todoToUpdate.setPriorityId(2L);
+        todoToUpdate.setStatus(Status.OPEN);
+        Mockito.when(todoApiRepository.findById(1L))
+                .thenReturn(Optional.of(Todo.builder().id(1L).build()));
+        Mockito.when(priorityCache.findById(2L))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatThrownBy(() -> todoWriteService.update(1L, todoToUpdate))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Priority with ID 2 doesn't exist.");
+        Mockito.verifyNoInteractions(todoService);
+    }
+
+    @Test
+    void patchStatus() {
+        Priority priority = Priority.builder()
+                .id(2L)
+                .build();
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .description("description")
+                .priority(priority)
+                .status(Status.OPEN)
+                .build();
+        TodoPatch todoPatch = new TodoPatch();
+        todoPatch.setStatus(Status.CLOSED);
+        Mockito.when(todoApiRepository.findById(todo.getId()))
+                .thenReturn(Optional.of(todo));
+        Mockito.when(todoService.save(ArgumentMatchers.any()))
+                .then(invocation -> invocation.getArgument(0));
+
+        Todo patched = todoWriteService.patch(todo.getId(), todoPatch);
+
+        Assertions.assertThat(patched)
+                .extracting(Todo::getId, Todo::getTitle, Todo::getDescription, Todo::getPriority, Todo::getStatus)
+                .containsExactly(todo.getId(), "title", "description", priority, Status.CLOSED);
+        Mockito.verify(todoService, Mockito.times(1))
+                .save(patched);
+        Mockito.verifyNoInteractions(priorityCache);
+    }
+
+    @Test
+    void patchClearsPriority() {
+        TodoPatch todoPatch = new TodoPatch();
+        todoPatch.setPriorityId(null);
+        Mockito.when(todoApiRepository.findById(1L))
+                .thenReturn(Optional.of(Todo.builder().id(1L).priority(Priority.builder().id(2L).build()).build()));
+        Mockito.when(todoService.save(ArgumentMatchers.any()))
+                .then(invocation -> invocation.getArgument(0));
+
+        Assertions.assertThat(todoWriteService.patch(1L, todoPatch).getPriority())
+                .isNull();
+        Mockito.verifyNoInteractions(priorityCache);
+    }
+
+    @Test
+    void patchWithUnknownPriority() {
+        TodoPatch todoPatch = new TodoPatch();
+        todoPatch.setPriorityId(2L);
+        Mockito.when(todoApiRepository.findById(1L))
+                .thenReturn(Optional.of(Todo.builder().id(1L).build()));
+        Mockito.when(priorityCache.findById(2L))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatThrownBy(() -> todoWriteService.patch(1L, todoPatch))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Priority with ID 2 doesn't exist.");
+        Mockito.verifyNoInteractions(todoService);
+    }
+
+    @Test
+    void patchUnknownTodo() {
+        TodoPatch todoPatch = new TodoPatch();
+        todoPatch.setTitle("title");
+        Mockito.when(todoApiRepository.findById(1L))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatThrownBy(() -> todoWriteService.patch(1L, todoPatch))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Todo with ID 1 doesn't exist.");
+        Mockito.verifyNoInteractions(todoService);
+    }
+
+    @Test
+    void patchWithoutFields() {
+        Todo todo = Todo.builder()
+                .id(1L)
+                .build();
+        Mockito.when(todoApiRepository.findById(1L))
+                .thenReturn(Optional.of(todo));
+
+        Assertions.assertThat(todoWriteService.patch(1L, new TodoPatch()))
+                .isSameAs(todo);
+        Mockito.verifyNoInteractions(todoService);
+    }
+
+    @Test
+    void create() {
+        Priority priority = Priority.builder()
+                .id(2L)
+                .build();
+        TodoToCreate todoToCreate = new TodoToCreate();
+        todoToCreate.setTitle("title");
+        todoToCreate.setPlannedDate(LocalDate.now().plusDays(1));
+        todoToCreate.setPosition(3L);
+        Mockito.when(todoApiRepository.allocateRank(Todo.class, 3L))
+                .thenReturn(new Allocation(2L, false));
+        Mockito.when(todoApiRepository.save(ArgumentMatchers.any(Todo.class)))
+                .then(invocation -> invocation.getArgument(0));
+
+        TodoWriteService.Placement placement = todoWriteService.create(todoToCreate, priority);
+
+        Assertions.assertThat(placement.shifted())
+                .isTrue();
+        Assertions.assertThat(placement.todo())
+                .extracting(Todo::getTitle, Todo::getPosition, Todo::getPriority, Todo::getStatus, Todo::getCreationDate)
+                .containsExactly("title", 2L, priority, Status.OPEN, LocalDate.now());
+        Mockito.verify(todoApiRepository, Mockito.times(1))
+                .save(ArgumentMatchers.any(Todo.class));
+        Mockito.verifyNoInteractions(todoRebalanceService);
+    }
+
+    @Test
+    void createIntoCrowdedGap() {
+        TodoToCreate todoToCreate = new TodoToCreate();
+        todoToCreate.setTitle("title");
+        todoToCreate.setPlannedDate(LocalDate.now().plusDays(1));
+        todoToCreate.setPosition(3L);
+        Mockito.when(todoApiRepository.allocateRank(Todo.class, 3L))
+                .thenReturn(new Allocation(2L, false, true));
+        Mockito.when(todoApiRepository.save(ArgumentMatchers.any(Todo.class)))
+                .then(invocation -> invocation.getArgument(0));
+
+        todoWriteService.create(todoToCreate, null);
+
+        Mockito.verify(todoRebalanceService, Mockito.times(1))
+                .rebalanceAfterCommit();
+    }
+
+    @Test
+    void moveDown() {
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .status(Status.OPEN)
+                .build();
+        Mockito.when(todoApiRepository.findIdAt(Todo.class, 2L))
+                .thenReturn(Optional.of(todo.getId()));
+        Mockito.when(todoApiRepository.allocateRank(Todo.class, 901L))
+                .thenReturn(new Allocation(950L, false));
+        Mockito.when(todoApiRepository.findWithPriorityById(todo.getId()))
+                .thenReturn(Optional.of(todo));
+
+        TodoWriteService.Placement placement = todoWriteService.move(2, 900);
+
+        Assertions.assertThat(placement.todo())
+                .isSameAs(todo);
+        Assertions.assertThat(placement.shifted())
+                .isTrue();
+        Assertions.assertThat(todo.getPosition())
+                .isEqualTo(950L);
+    }
+
+    @Test
+    void moveUp() {
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .status(Status.OPEN)
+                .build();
+        Mockito.when(todoApiRepository.findIdAt(Todo.class, 900L))
+                .thenReturn(Optional.of(todo.getId()));
+        Mockito.when(todoApiRepository.allocateRank(Todo.class, 2L))
+                .thenReturn(new Allocation(2L + PositionRepository.GAP / 2, false));
+        Mockito.when(todoApiRepository.findWithPriorityById(todo.getId()))
+                .thenReturn(Optional.of(todo));
+
+        TodoWriteService.Placement placement = todoWriteService.move(900, 2);
+
+        Assertions.assertThat(placement.shifted())
+                .isTrue();
+        Assertions.assertThat(todo.getPosition())
+                .isEqualTo(2L + PositionRepository.GAP / 2);
+    }
+
+    @Test
+    void moveNotExisting() {
+        Mockito.when(todoApiRepository.findIdAt(Todo.class, 2L))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatThrownBy(() -> todoWriteService.move(2, 900))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Todo with position 2 doesn't exist.");
+        Mockito.verify(todoApiRepository, Mockito.never())
+                .allocateRank(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void moveToSamePosition() {
+        Todo todo = Todo.builder()
+                .id(1L)
+                .title("title")
+                .status(Status.OPEN)
+                .position(2L)
+                .build();
+        Mockito.when(todoApiRepository.findIdAt(Todo.class, 2L))
+                .thenReturn(Optional.of(todo.getId()));
+        Mockito.when(todoApiRepository.findWithPriorityById(todo.getId()))
+                .thenReturn(Optional.of(todo));
+
+        TodoWriteService.Placement placement = todoWriteService.move(2, 2);
+
+        Assertions.assertThat(placement.shifted())
+                .isFalse();
+        Assertions.assertThat(todo.getPosition())
+                .isEqualTo(2L);
+        Mockito.verify(todoApiRepository, Mockito.never())
+                .allocateRank(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void swap() {
+        Mockito.when(todoApiRepository.swap(Todo.class, 1, 4))
+                .thenReturn(List.of(7L, 3L));
+
+        Assertions.assertThat(todoWriteService.swap(1, 4))
+                .containsExactly(7L, 3L);
+    }
+
+    @Test
+    void swapNotExisting() {
+        Mockito.when(todoApiRepository.swap(Todo.class, 4, 1))
+                .thenReturn(List.of());
+
+        Assertions.assertThatThrownBy(() -> todoWriteService.swap(4, 1))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Todo with position 4 doesn't exist.");
+    }
+
+    @Test
+    void delete() {
+        List<Todo> todos = List.of(
+                Todo.builder()
+                        .id(1L)
+                        .position(5 * PositionRepository.GAP)
+                        .build(),
+                Todo.builder()
+                        .id(2L)
+                        .position(3 * PositionRepository.GAP)
+                        .build());
+        Mockito.when(todoApiRepository.findAllById(Set.of(1L, 2L)))
+                .thenReturn(todos);
+        Mockito.when(todoApiRepository.findIndexesOf(Todo.class, List.of(3 * PositionRepository.GAP)))
+                .thenReturn(Map.of(3 * PositionRepository.GAP, 2L));
+
+        TodoWriteService.Deletion deletion = todoWriteService.delete(Set.of(1L, 2L));
+
+        Assertions.assertThat(deletion.ids())
+                .containsExactly(1L, 2L);
+        Assertions.assertThat(deletion.position())
+                .isEqualTo(2L);
+        Mockito.verify(todoApiRepository, Mockito.times(1))
+                .deleteAll(todos);
+    }
+
+    @Test
+    void deleteNotExisting() {
+        Mockito.when(todoApiRepository.findAllById(List.of(1L)))
+                .thenReturn(List.of());
+
+        Assertions.assertThatThrownBy(() -> todoWriteService.delete(List.of(1L)))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Todo with ID 1 doesn't exist.");
+        Mockito.verify(todoApiRepository, Mockito.never())
+                .deleteAll(Mockito.any());
+    }
+
+    @Test
+    void reorder() {
+        List<Long> ids = List.of(3L, 1L, 2L);
+        Mockito.when(todoApiRepository.count())
+                .thenReturn(3L);
+        Mockito.when(todoApiRepository.reorder(Todo.class, ids, PositionRepository.GAP))
+                .thenReturn(3);
+
+        todoWriteService.reorder(ids);
+
+        Mockito.verify(todoApiRepository, Mockito.times(1))
+                .reorder(Todo.class, ids, PositionRepository.GAP);
+    }
+
+    @Test
+    void reorderWithDuplicateIds() {
+        List<Long> ids = List.of(1L, 1L);
+
+        Assertions.assertThatThrownBy(() -> todoWriteService.reorder(ids))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Order contains duplicate IDs.");
+        Mockito.verify(todoApiRepository, Mockito.never())
+                .reorder(Mockito.any(), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    void reorderWithMissingIds() {
+        List<Long> ids = List.of(1L, 2L);
+        Mockito.when(todoApiRepository.count())
+                .thenReturn(3L);
+
+        Assertions.assertThatThrownBy(() -> todoWriteService.reorder(ids))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Order must contain IDs of all 3 todos.");
+        Mockito.verify(todoApiRepository, Mockito.never())
+                .reorder(Mockito.any(), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    void reorderWithUnknownIds() {
+        List<Long> ids = List.of(1L, 2L, 7L);
+        Mockito.when(todoApiRepository.count())
+                .thenReturn(3L);
+        Mockito.when(todoApiRepository.reorder(Todo.class, ids, PositionRepository.GAP))
+                .thenReturn(2);
+
+        Assertions.assertThatThrownBy(() -> todoWriteService.reorder(ids))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Order must contain IDs of all 3 todos.");
+    }
+}
@@ -0,0 +1,120 @@
+package by.babanin.todo.controller.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import by.babanin.todo.controller.mapper.PriorityMapper;
+import by.babanin.todo.controller.mapper.TodoMapper;
+import by.babanin.todo.model.Status;
+import by.babanin.todo.model.Todo;
+import jakarta.persistence.EntityManager;
+
+class NdjsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final TodoMapper todoMapper = new TodoMapper(new PriorityMapper());
+    private final EntityManager entityManager = Mockito.mock(EntityManager.class);
+    private final Session session = Mockito.mock(Session.class);
+    private final NdjsonWriter ndjsonWriter = new NdjsonWriter(objectMapper, TransactionOperations.withoutTransaction(), entityManager);
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(entityManager.unwrap(Session.class))
+                .thenReturn(session);
+        Mockito.when(session.getCacheMode())
+                .thenReturn(CacheMode.NORMAL);
+    }
+
+    @Test
+    void writeOneLinePerRow() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        ndjsonWriter.write(() -> todos(3), todoMapper::toTodoInfo)
+                .writeTo(outputStream);
+
+        String[] lines = outputStream.toString().split("\n");
+        Assertions.assertThat(lines).hasSize(3);
+        for(int i = 0; i < lines.length; i++) {
+            Assertions.assertThat(lines[i])
+                    .isEqualTo(objectMapper.writeValueAsString(todoMapper.toTodoInfo(todo(i))));
+        }
+        Mockito.verify(entityManager, Mockito.times(3))
+                .detach(Mockito.any(Todo.class));
+    }
+
+    /**
+     * Every row must reach the output and be detached before the next one is read, so nothing grows with the row count.
+     */
+    @Test
+    void writeStreamsRowsBeforeSourceIsExhausted() throws Exception {
+        int count = 10_000;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AtomicLong writtenBeforeLastRow = new AtomicLong();
+        AtomicLong detachedBeforeLastRow = new AtomicLong();
+        Stream<Todo> rows = LongStream.range(0, count)
+                .peek(i -> {
+                    if(i == count - 1) {
+                        writtenBeforeLastRow.set(outputStream.size());
+                        detachedBeforeLastRow.set(Mockito.mockingDetails(entityManager).getInvocations().stream()
+                                .filter(invocation -> invocation.getMethod().getName().equals("detach"))
+                                .count());
+                    }
+                })
+                .mapToObj(NdjsonWriterTest::todo);
+
+        ndjsonWriter.write(() -> rows, todoMapper::toTodoInfo)
+                .writeTo(outputStream);
+
+        // Only the generator's own buffer of a few kilobytes may still be pending when the last row is read
+        Assertions.assertThat(outputStream.size() - writtenBeforeLastRow.get())
+                .isLessThan(16 * 1024);
+        Assertions.assertThat(detachedBeforeLastRow.get())
+                .isEqualTo(count - 1);
+    }
+
+    @Test
+    void writeBypassesSecondLevelCache() throws Exception {
+        ndjsonWriter.write(() -> todos(1), todoMapper::toTodoInfo)
+                .writeTo(new ByteArrayOutputStream());
+
+        InOrder inOrder = Mockito.inOrder(session, entityManager);
+        inOrder.verify(session).setCacheMode(CacheMode.IGNORE);
+        inOrder.verify(entityManager).detach(Mockito.any(Todo.class));
+        inOrder.verify(session).setCacheMode(CacheMode.NORMAL);
+    }
+
+    private static Stream<Todo> todos(long count) {
+        return LongStream.range(0, count)
+                .mapToObj(NdjsonWriterTest::todo);
+    }
+
+    private static Todo todo(long id) {
+        return Todo.builder()
+                .id(id)
+                .title("title" + id)
+                .description("description" + id)
+                .status(Status.OPEN)
+                .creationDate(LocalDate.of(2023, 1, 1))
+                .plannedDate(LocalDate.of(2023, 1, 2))
+                .position(id)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package by.babanin.todo.controller.sync;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import by.babanin.todo.controller.sync.TodoChangeLog.Delta;
+
+class TodoChangeLogTest {
+
+    private final TodoChangeLog todoChangeLog = new TodoChangeLog(8);
+
+    @Test
+    void sinceWithoutToken() {
+        Delta delta = todoChangeLog.since(null);
+
+        Assertions.assertThat(delta.reset()).isTrue();
+        Assertions.assertThat(delta.token()).isEqualTo(todoChangeLog.token());
+    }
+
+    @Test
+    void sinceCurrentToken() {
+        todoChangeLog.upserted(List.of(1L));
+        String token = todoChangeLog.token();
+
+        Delta delta = todoChangeLog.since(token);
+
+        Assertions.assertThat(delta.reset()).isFalse();
+        Assertions.assertThat(delta.upserted()).isEmpty();
+        Assertions.assertThat(delta.deleted()).isEmpty();
+        Assertions.assertThat(delta.shiftedFrom()).isEqualTo(TodoChangeLog.NO_SHIFT);
+        Assertions.assertThat(delta.token()).isEqualTo(token);
+    }
+
+    @Test
+    void sinceMergesChanges() {
+        todoChangeLog.upserted(List.of(1L));
+        String token = todoChangeLog.token();
+        todoChangeLog.upserted(List.of(2L, 3L));
+        todoChangeLog.deleted(List.of(3L));
+        todoChangeLog.shifted(7);
+        todoChangeLog.shifted(5);
+
+        Delta delta = todoChangeLog.since(token);
+
+        Assertions.assertThat(delta.reset()).isFalse();
+        Assertions.assertThat(delta.upserted()).containsExactly(2L);
+        Assertions.assertThat(delta.deleted()).containsExactly(3L);
+        Assertions.assertThat(delta.shiftedFrom()).isEqualTo(5);
+        Assertions.assertThat(delta.token()).isEqualTo(todoChangeLog.token());
+    }
+
+    @Test
+    void sinceEvictedToken() {
+        String token = todoChangeLog.token();
+        todoChangeLog.upserted(LongStream.rangeClosed(1, 9).boxed().toList());
+
+        Assertions.assertThat(todoChangeLog.since(token).reset()).isTrue();
+    }
+
+    @Test
+    void sinceClearedToken() {
+        String token = todoChangeLog.token();
+        todoChangeLog.cleared();
+
+        Assertions.assertThat(todoChangeLog.since(token).reset()).isTrue();
+        Assertions.assertThat(todoChangeLog.since(todoChangeLog.token()).reset()).isFalse();
+    }
+
+    @Test
+    void sinceForeignToken() {
+        Assertions.assertThat(todoChangeLog.since("other.0").reset()).isTrue();
+        Assertions.assertThat(todoChangeLog.since("test").reset()).isTrue();
+    }
+}